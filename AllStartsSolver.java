@@ -0,0 +1,164 @@
+import java.util.*;
+
+/*
+ * This class finds the best relief path from every site at once. Where SubsetDpSolver grows
+ *      paths forwards from one fixed start, this table grows them backwards: for every set of
+ *      sites and every site the path could start at, it remembers the cheapest path that
+ *      starts there and visits exactly that set. Such a path is its first step followed by
+ *      the cheapest path through the rest of the set from wherever that step leads, so each
+ *      entry is worked out from entries of a smaller set, whatever the start.
+ *      One table of 2^n * n entries then answers for all n starts, where solving each start on
+ *      its own would fill n tables of half that size.
+ *      The best path from a start is the one Client.findPath picks when that site is moved to
+ *      the front of the list and the others keep their order. Costs are added up from the end
+ *      of the path instead of from the start, so two paths whose costs only differ by rounding
+ *      might be ranked the other way around.
+ */
+final class AllStartsSolver {
+    private static final double UNREACHED = Double.POSITIVE_INFINITY;
+
+    private final RegionGraph graph;
+    private final int n;
+    private final double[] table;
+    private final byte[] following;
+
+    private AllStartsSolver(RegionGraph graph) {
+        this.graph = graph;
+        n = graph.size();
+        if (n > Integer.SIZE - 2 || (1L << n) * n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many sites for the all-starts solver: " + n);
+        }
+        int states = (1 << n) * n;
+        table = new double[states];
+        following = new byte[states];
+        Arrays.fill(table, UNREACHED);
+    }
+
+    /*
+     * Finds the best path from every site of a compiled graph.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the graph has too many sites for the
+     *          table to fit in memory
+     * Return:
+     *      - List<Path>: the best path starting from each site, in the order of the site ids
+     */
+    static List<Path> solve(RegionGraph graph) {
+        AllStartsSolver solver = new AllStartsSolver(graph);
+        solver.fill();
+        int[] best = solver.best();
+        List<Path> paths = new ArrayList<>(best.length);
+        for (int state : best) {
+            int[] order = solver.sequence(state);
+            paths.add(graph.toPath(order, order.length));
+        }
+        return paths;
+    }
+
+    /*
+     * Fills in the cheapest cost for every (visited set, start site) state. Sets are walked in
+     *      increasing order, so the rest of every set is finished before the set itself.
+     *      Connections are sorted by target, so on an exact cost tie the step to the lowest
+     *      site wins, which is the path the exhaustive search would have listed first.
+     */
+    private void fill() {
+        for (int start = 0; start < n; start++) {
+            table[(1 << start) * n + start] = 0;
+            following[(1 << start) * n + start] = -1;
+        }
+        int masks = 1 << n;
+        for (int mask = 1; mask < masks; mask++) {
+            if ((mask & (mask - 1)) == 0) {
+                continue;
+            }
+            for (int members = mask; members != 0; members &= members - 1) {
+                int start = Integer.numberOfTrailingZeros(members);
+                int rest = mask & ~(1 << start);
+                int state = mask * n + start;
+                for (int edge = graph.firstEdge(start); edge < graph.firstEdge(start + 1); edge++) {
+                    int next = graph.target(edge);
+                    if ((rest & (1 << next)) == 0) {
+                        continue;
+                    }
+                    double cost = graph.cost(edge) + table[rest * n + next];
+                    if (cost < table[state]) {
+                        table[state] = cost;
+                        following[state] = (byte) next;
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Picks the best state for every start once the table is filled, ranking exactly like
+     *      Client.bestPath. A start alone is only picked when it has no neighbors, so for any
+     *      other start it is a placeholder that the first reached path replaces.
+     * Return:
+     *      - int[]: the index of the winning state in the table for each start
+     */
+    private int[] best() {
+        int masks = 1 << n;
+        int[] people = new int[masks];
+        int[] best = new int[n];
+        boolean[] placeholder = new boolean[n];
+        for (int start = 0; start < n; start++) {
+            best[start] = (1 << start) * n + start;
+            placeholder[start] = !PathRanking.startAloneCounts(graph, start);
+        }
+        for (int mask = 1; mask < masks; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            people[mask] = people[mask & (mask - 1)] + graph.population(low);
+            if ((mask & (mask - 1)) == 0) {
+                continue;
+            }
+            for (int members = mask; members != 0; members &= members - 1) {
+                int start = Integer.numberOfTrailingZeros(members);
+                int state = mask * n + start;
+                if (table[state] == UNREACHED) {
+                    continue;
+                }
+                int known = best[start];
+                int order = placeholder[start] ? -1
+                        : PathRanking.compare(people[mask], table[state], people[known / n], table[known]);
+                if (order < 0 || (order == 0 && comparePostOrder(state, known) < 0)) {
+                    best[start] = state;
+                    placeholder[start] = false;
+                }
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Compares two paths from the same start by the order the exhaustive search lists them
+     *      in. Moving the start to the front keeps every other site in order, so comparing
+     *      site ids gives the same answer as comparing positions in the moved list.
+     */
+    private int comparePostOrder(int stateA, int stateB) {
+        int[] a = sequence(stateA);
+        int[] b = sequence(stateB);
+        return PathRanking.comparePostOrder(a, a.length, b, b.length);
+    }
+
+    /*
+     * Follows the stored next steps from the start of a state to the end of its path.
+     * Parameters:
+     *      - state: the table index of the state to rebuild
+     * Return:
+     *      - int[]: the site ids of the path, starting with its start
+     */
+    private int[] sequence(int state) {
+        int mask = state / n;
+        int at = state % n;
+        int[] order = new int[Integer.bitCount(mask)];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = at;
+            int next = following[mask * n + at];
+            mask &= ~(1 << at);
+            at = next;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * The answer from a time-limited search. Besides the best path that was found in time, it
+ *      holds the most people any path could possibly help, and whether the path was proven to
+ *      be the best one.
+ */
+public final class AnytimeResult {
+    private final Path path;
+    private final int upperBound;
+    private final boolean optimal;
+
+    AnytimeResult(Path path, int upperBound, boolean optimal) {
+        this.path = path;
+        this.upperBound = upperBound;
+        this.optimal = optimal;
+    }
+
+    /*
+     * Returns the best path found before the time ran out.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /*
+     * Returns the most people that any path from the start region could help. This is equal
+     *      to getPath().totalPeople() when the search finished.
+     */
+    public int getUpperBound() {
+        return upperBound;
+    }
+
+    /*
+     * Returns true if the search finished, which means getPath() is the same path that
+     *      Client.findPath would return.
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /*
+     * Returns the amount of people that the best possible path might still help on top of
+     *      the path that was found.
+     */
+    public int getGap() {
+        return upperBound - path.totalPeople();
+    }
+
+    public String toString() {
+        return path + " (people: " + path.totalPeople() + ", bound: " + upperBound
+                + (optimal ? ", optimal)" : ")");
+    }
+}
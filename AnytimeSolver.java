@@ -0,0 +1,101 @@
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/*
+ * This class finds a relief path within a fixed amount of time. It starts from a greedy path
+ *      that always moves to the most populated reachable region, so there is an answer right
+ *      away, and then runs the branch-and-bound search, which keeps improving on that answer
+ *      until it either finishes or runs out of time.
+ */
+final class AnytimeSolver {
+
+    private AnytimeSolver() {
+    }
+
+    /*
+     * Finds the best path that can be found through the given sites within the time budget.
+     * Parameters:
+     *      - sites: the list of all the regions that need help, with the start first
+     *      - budget: how long the search may run
+     * Return:
+     *      - AnytimeResult: the best path found, the upper bound on people helped and whether
+     *          the path was proven to be the best one
+     */
+    static AnytimeResult solve(List<Region> sites, Duration budget) {
+        return solve(RegionGraph.compile(sites), budget);
+    }
+
+    /*
+     * Finds the best path that can be found through a compiled graph within the time budget,
+     *      starting from the region with id 0.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - budget: how long the search may run
+     * Return:
+     *      - AnytimeResult: the best path found, the upper bound on people helped and whether
+     *          the path was proven to be the best one
+     */
+    static AnytimeResult solve(RegionGraph graph, Duration budget) {
+        long nanos;
+        try {
+            nanos = Math.max(0, budget.toNanos());
+        } catch (ArithmeticException e) {
+            nanos = Long.MAX_VALUE;
+        }
+        BranchAndBoundSolver.Candidate greedy = greedy(graph);
+        AtomicReference<BranchAndBoundSolver.Candidate> seed = new AtomicReference<>(greedy);
+        BranchAndBoundSolver search = new BranchAndBoundSolver(graph, seed, null);
+        search.stopAfter(nanos);
+        BranchAndBoundSolver.Candidate found = search.searchFrom(new int[] {0}, graph.population(0), 0);
+        if (!search.wasStopped()) {
+            return new AnytimeResult(graph.toPath(found.order, found.order.length), found.people, true);
+        }
+        BranchAndBoundSolver.Candidate best = greedy.compareTo(found) < 0 ? greedy : found;
+        int bound = Math.max(best.people, search.upperBound());
+        return new AnytimeResult(graph.toPath(best.order, best.order.length), bound, false);
+    }
+
+    /*
+     * Builds a path by always moving to the unvisited neighbor with the most people, and keeps
+     *      the best of the paths it passes through along the way. Like Client.findPath, it only
+     *      keeps the start region alone when the start cannot reach any other site.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     * Return:
+     *      - Candidate: the best greedy path
+     */
+    private static BranchAndBoundSolver.Candidate greedy(RegionGraph graph) {
+        boolean[] visited = new boolean[graph.size()];
+        int[] order = new int[graph.size()];
+        int length = 1;
+        int people = graph.population(0);
+        double cost = 0;
+        visited[0] = true;
+        BranchAndBoundSolver.Candidate best = PathRanking.startAloneCounts(graph, 0)
+                ? new BranchAndBoundSolver.Candidate(people, cost, new int[] {0}) : null;
+        while (true) {
+            int end = order[length - 1];
+            int chosen = -1;
+            for (int edge = graph.firstEdge(end); edge < graph.firstEdge(end + 1); edge++) {
+                int next = graph.target(edge);
+                if (!visited[next] && (chosen < 0 || graph.population(next) > graph.population(graph.target(chosen)))) {
+                    chosen = edge;
+                }
+            }
+            if (chosen < 0) {
+                return best;
+            }
+            int next = graph.target(chosen);
+            visited[next] = true;
+            order[length++] = next;
+            people += graph.population(next);
+            cost += graph.cost(chosen);
+            BranchAndBoundSolver.Candidate extended =
+                    new BranchAndBoundSolver.Candidate(people, cost, Arrays.copyOf(order, length));
+            if (best == null || extended.compareTo(best) < 0) {
+                best = extended;
+            }
+        }
+    }
+}
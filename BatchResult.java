@@ -0,0 +1,50 @@
+/*
+ * The answer for one scenario of a batch. It knows which scenario it belongs to, since a batch
+ *      hands its answers back in the order they finish rather than the order they were given.
+ *      A scenario that could not be solved carries the exception that stopped it instead.
+ */
+public final class BatchResult {
+    private final int index;
+    private final AnytimeResult result;
+    private final RuntimeException failure;
+
+    BatchResult(int index, AnytimeResult result, RuntimeException failure) {
+        this.index = index;
+        this.result = result;
+        this.failure = failure;
+    }
+
+    /*
+     * Returns the position of the scenario in the collection the batch was given.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /*
+     * Returns the best path found for the scenario, or null if the scenario had no regions or
+     *      could not be solved.
+     */
+    public AnytimeResult getResult() {
+        return result;
+    }
+
+    /*
+     * Returns the exception that stopped the scenario from being solved, or null if it was
+     *      solved.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /*
+     * Returns true if the scenario was solved, even if it had no regions.
+     */
+    public boolean isSolved() {
+        return failure == null;
+    }
+
+    public String toString() {
+        return "#" + index + ": " + (failure != null ? "failed (" + failure.getMessage() + ")" : result);
+    }
+}
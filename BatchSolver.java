@@ -0,0 +1,234 @@
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+/*
+ * This class solves many independent scenarios at once on a fixed pool of threads. Every
+ *      scenario is compiled into its own graph on the thread that hands it to the pool, and
+ *      the paths that come back are made of regions rebuilt from that graph. The pool threads
+ *      never read the caller's regions, so scenarios never share state with each other or
+ *      with the caller, and the caller may change a scenario as soon as it has been handed
+ *      over.
+ *      Scenarios are handed to the pool only as answers are taken, so no more than a fixed
+ *      number are ever being solved or waiting to be picked up. A slow consumer holds the
+ *      batch back instead of letting answers pile up in memory.
+ *      Every scenario gets the same time budget. A scenario that runs out of time still
+ *      returns the best path found so far, marked as not proven optimal.
+ *      Closing the stream of answers cancels every scenario still running, and closing the
+ *      solver stops its threads.
+ */
+public final class BatchSolver implements AutoCloseable {
+    private final ExecutorService pool;
+    private final int maxInFlight;
+    private final Duration budget;
+
+    /*
+     * Creates a batch solver with one thread per core that keeps twice as many scenarios in
+     *      flight as it has threads.
+     * Parameters:
+     *      - budget: how long each scenario may be searched for
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the budget is null
+     */
+    public BatchSolver(Duration budget) {
+        this(Runtime.getRuntime().availableProcessors(), 2 * Runtime.getRuntime().availableProcessors(), budget);
+    }
+
+    /*
+     * Creates a batch solver.
+     * Parameters:
+     *      - threads: how many scenarios are solved at the same time
+     *      - maxInFlight: the most scenarios that are being solved or waiting to be picked up at
+     *          once
+     *      - budget: how long each scenario may be searched for
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if there are no threads, maxInFlight is less
+     *          than the number of threads, or the budget is null
+     */
+    public BatchSolver(int threads, int maxInFlight, Duration budget) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The batch needs at least one thread!");
+        }
+        if (maxInFlight < threads) {
+            throw new IllegalArgumentException("The batch has to keep every thread busy!");
+        }
+        if (budget == null) {
+            throw new IllegalArgumentException("The time budget cannot be null!");
+        }
+        this.maxInFlight = maxInFlight;
+        this.budget = budget;
+        pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "relief-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /*
+     * Solves every scenario in the collection and hands the answers back as they finish.
+     *      Scenarios are only read when the stream asks for more answers, on the thread that
+     *      asks, so the collection must not change until the stream is used up or closed.
+     * Parameters:
+     *      - scenarios: the scenarios to solve, each a list of regions with the start first
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the collection of scenarios is null
+     *      - CancellationException(): gets thrown by the stream if it is closed, the solver is
+     *          closed, or the consuming thread is interrupted while waiting for an answer
+     * Return:
+     *      - Stream<BatchResult>: one answer per scenario, in the order they finish
+     */
+    public Stream<BatchResult> solve(Collection<? extends List<Region>> scenarios) {
+        if (scenarios == null) {
+            throw new IllegalArgumentException("The scenarios collection cannot be null!");
+        }
+        Batch batch = new Batch(scenarios.iterator(), scenarios.size());
+        Spliterator<BatchResult> answers = Spliterators.spliterator(batch, scenarios.size(),
+                Spliterator.NONNULL | Spliterator.DISTINCT);
+        return StreamSupport.stream(answers, false).onClose(batch::cancel);
+    }
+
+    /*
+     * Stops every thread of the solver. Scenarios that are still running are interrupted and
+     *      answer with the best path found so far, and scenarios that have not started yet
+     *      answer with a CancellationException as their failure.
+     */
+    public void close() {
+        for (Runnable task : pool.shutdownNow()) {
+            ((Future<?>) task).cancel(false);
+        }
+    }
+
+    /*
+     * Compiles one scenario into a graph of its own that keeps none of the given regions.
+     * Parameters:
+     *      - sites: the regions of the scenario, with the start first
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null
+     * Return:
+     *      - RegionGraph: the compiled scenario, or null if it has no regions
+     */
+    private static RegionGraph compile(List<Region> sites) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be null!");
+        }
+        return sites.isEmpty() ? null : RegionGraph.compile(sites).detached();
+    }
+
+    /*
+     * Solves one compiled scenario, or answers with the reason it could not be compiled.
+     */
+    private BatchResult solveOne(int index, RegionGraph graph, RuntimeException failure) {
+        if (failure != null) {
+            return new BatchResult(index, null, failure);
+        }
+        try {
+            return new BatchResult(index, graph == null ? null : AnytimeSolver.solve(graph, budget), null);
+        } catch (RuntimeException e) {
+            return new BatchResult(index, null, e);
+        }
+    }
+
+    /*
+     * One run over a collection of scenarios. Scenarios are handed to the pool from the
+     *      thread that consumes the answers, topping the pool up to maxInFlight every time an
+     *      answer is taken.
+     */
+    private final class Batch implements Iterator<BatchResult> {
+        private final Iterator<? extends List<Region>> source;
+        private final BlockingQueue<BatchResult> finished;
+        private final Set<Future<?>> running;
+        private int remaining;
+        private int submitted;
+        private int inFlight;
+        private volatile boolean cancelled;
+
+        Batch(Iterator<? extends List<Region>> source, int size) {
+            this.source = source;
+            finished = new LinkedBlockingQueue<>();
+            running = ConcurrentHashMap.newKeySet();
+            remaining = size;
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public BatchResult next() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            fill();
+            BatchResult answer;
+            try {
+                answer = finished.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new CancellationException("The batch was interrupted");
+            }
+            if (cancelled) {
+                throw new CancellationException("The batch was cancelled");
+            }
+            inFlight--;
+            remaining--;
+            return answer;
+        }
+
+        /*
+         * Hands scenarios to the pool until maxInFlight of them are being solved or waiting to
+         *      be picked up.
+         */
+        private void fill() {
+            if (cancelled) {
+                throw new CancellationException("The batch was cancelled");
+            }
+            while (inFlight < maxInFlight && source.hasNext()) {
+                int index = submitted++;
+                List<Region> sites = source.next();
+                RegionGraph graph = null;
+                RuntimeException failure = null;
+                try {
+                    graph = compile(sites);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+                RegionGraph compiled = graph;
+                RuntimeException failed = failure;
+                FutureTask<BatchResult> task = new FutureTask<>(() -> solveOne(index, compiled, failed)) {
+                    @Override
+                    protected void done() {
+                        running.remove(this);
+                        try {
+                            finished.add(get());
+                        } catch (CancellationException e) {
+                            finished.add(new BatchResult(index, null, e));
+                        } catch (InterruptedException | ExecutionException e) {
+                            finished.add(new BatchResult(index, null, new CompletionException(e)));
+                        }
+                    }
+                };
+                running.add(task);
+                inFlight++;
+                try {
+                    pool.execute(task);
+                } catch (RejectedExecutionException e) {
+                    cancel();
+                    throw new CancellationException("The batch solver is closed");
+                }
+            }
+        }
+
+        /*
+         * Cancels every scenario that is still running, and wakes the consumer up if it is
+         *      waiting for an answer.
+         */
+        void cancel() {
+            cancelled = true;
+            for (Future<?> task : running) {
+                task.cancel(true);
+            }
+            finished.add(new BatchResult(-1, null, new CancellationException("The batch was cancelled")));
+        }
+    }
+}
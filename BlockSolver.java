@@ -0,0 +1,281 @@
+import java.util.*;
+
+/*
+ * This class finds the best relief path by cutting the graph at its articulation points, the
+ *      regions whose removal would split the network in two, and solving each piece on its
+ *      own. Once a path leaves a piece through an articulation point it can never come back,
+ *      since that would mean passing the same region twice, so the best path is the best path
+ *      through the first piece followed by the best continuation past wherever it leaves it.
+ *      Pieces are solved from the far side of the network inwards. The best continuation past
+ *      an articulation point is known by the time the piece holding it is solved, and is added
+ *      to that piece as an extra end region worth the people and cost of the continuation.
+ *      Helping people and spending money both add up along a path, so the best path through
+ *      every piece adds up to the best path overall.
+ *      Inside a piece the entry region counts as one person, whatever its population. Every
+ *      path through the piece starts there, so this does not change which path is best, and
+ *      it keeps the exhaustive ranking from ever seeing only paths that help nobody.
+ *      A path may stop at any articulation point, so going no further is always an option
+ *      past one. The start is the exception: like Client.findPath, the path only stays there
+ *      when the start cannot reach any other region.
+ */
+final class BlockSolver {
+    private static final int CONTINUE = -1;
+
+    private final RegionGraph graph;
+    private final SolverMode mode;
+    private final int[] gainPeople;
+    private final double[] gainCost;
+    private final int[][] continuation;
+    private final int[] local;
+
+    private BlockSolver(RegionGraph graph, SolverMode mode) {
+        this.graph = graph;
+        this.mode = mode;
+        int n = graph.size();
+        gainPeople = new int[n];
+        gainCost = new double[n];
+        continuation = new int[n][];
+        local = new int[n];
+        Arrays.fill(local, -1);
+    }
+
+    /*
+     * Finds the best path through the given graph, starting from the region with id 0.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - mode: the search engine to use on every piece
+     * Return:
+     *      - int[]: the ids of the regions on the best path, in travel order
+     */
+    static int[] solve(RegionGraph graph, SolverMode mode) {
+        BlockSolver solver = new BlockSolver(graph, mode);
+        for (int[] block : blocks(graph)) {
+            solver.solveBlock(block);
+        }
+        return solver.order();
+    }
+
+    /*
+     * Solves one piece and remembers it as the continuation past its first region if it beats
+     *      every piece solved from there so far, and going no further unless that region is a
+     *      start with neighbors.
+     * Parameters:
+     *      - block: the regions of the piece, with the region it is entered through first
+     */
+    private void solveBlock(int[] block) {
+        int entry = block[0];
+        int size = block.length;
+        for (int i = 0; i < size; i++) {
+            local[block[i]] = i;
+        }
+        List<Integer> extra = new ArrayList<>();
+        for (int i = 1; i < size; i++) {
+            if (PathRanking.compare(gainPeople[block[i]], gainCost[block[i]], 0, 0) < 0) {
+                extra.add(i);
+            }
+        }
+        int total = size + extra.size();
+        String[] names = new String[total];
+        int[] population = new int[total];
+        int[] offsets = new int[total + 1];
+        List<long[]> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int site = block[i];
+            names[i] = graph.name(site);
+            population[i] = graph.population(site);
+            long[] row = new long[graph.firstEdge(site + 1) - graph.firstEdge(site) + 1];
+            int count = 0;
+            for (int edge = graph.firstEdge(site); edge < graph.firstEdge(site + 1); edge++) {
+                int next = local[graph.target(edge)];
+                if (next >= 0) {
+                    row[count++] = ((long) next << 32) | edge;
+                }
+            }
+            row = Arrays.copyOf(row, count);
+            Arrays.sort(row);
+            rows.add(row);
+        }
+        int[] extraOf = new int[size];
+        Arrays.fill(extraOf, -1);
+        for (int k = 0; k < extra.size(); k++) {
+            int i = extra.get(k);
+            extraOf[i] = size + k;
+            names[size + k] = "(" + names[i] + " onward)";
+            population[size + k] = gainPeople[block[i]];
+        }
+        for (int i = 0; i < total; i++) {
+            int count = i < size ? rows.get(i).length + (extraOf[i] >= 0 ? 1 : 0) : 0;
+            offsets[i + 1] = offsets[i] + count;
+        }
+        int[] targets = new int[offsets[total]];
+        double[] costs = new double[offsets[total]];
+        for (int i = 0; i < size; i++) {
+            int at = offsets[i];
+            for (long key : rows.get(i)) {
+                targets[at] = (int) (key >>> 32);
+                costs[at] = graph.cost((int) key);
+                at++;
+            }
+            if (extraOf[i] >= 0) {
+                targets[at] = extraOf[i];
+                costs[at] = gainCost[block[i]];
+            }
+        }
+        for (int site : block) {
+            local[site] = -1;
+        }
+        population[0] = 1;
+
+        RegionGraph piece = RegionGraph.of(names, population, offsets, targets, costs);
+        Map<Region, Integer> ids = new IdentityHashMap<>();
+        for (int i = 0; i < total; i++) {
+            ids.put(piece.region(i), i);
+        }
+        List<Region> found = Client.findPath(piece, mode).getRegions();
+        int[] order = new int[found.size()];
+        int people = -1;
+        double cost = 0;
+        for (int i = 0; i < order.length; i++) {
+            int id = ids.get(found.get(i));
+            people += population[id];
+            if (i > 0) {
+                cost += piece.costBetween(order[i - 1], id);
+            }
+            order[i] = id;
+        }
+        boolean mustLeave = false;
+        if (entry == 0 && !PathRanking.startAloneCounts(graph, 0)) {
+            if (order.length == 1) {
+                return;
+            }
+            mustLeave = continuation[0] == null;
+        }
+        if (mustLeave || PathRanking.compare(people, cost, gainPeople[entry], gainCost[entry]) < 0) {
+            gainPeople[entry] = people;
+            gainCost[entry] = cost;
+            for (int i = 0; i < order.length; i++) {
+                order[i] = order[i] < size ? block[order[i]] : CONTINUE;
+            }
+            continuation[entry] = order;
+        }
+    }
+
+    /*
+     * Follows the chosen continuations from the start to put the best path together.
+     */
+    private int[] order() {
+        int[] order = new int[graph.size()];
+        int length = 1;
+        int at = 0;
+        while (continuation[at] != null) {
+            int[] next = continuation[at];
+            for (int i = 1; i < next.length && next[i] != CONTINUE; i++) {
+                order[length++] = next[i];
+            }
+            if (next[next.length - 1] != CONTINUE) {
+                break;
+            }
+            at = order[length - 1];
+        }
+        return Arrays.copyOf(order, length);
+    }
+
+    /*
+     * Splits the graph into its biconnected pieces, treating every connection as two-way.
+     *      Pieces come out in the order a depth-first search from id 0 finishes them, so every
+     *      piece comes after all of the pieces that hang off of it. Each piece lists the region
+     *      closest to id 0 first.
+     * Parameters:
+     *      - graph: the graph to split, where every region can be reached from id 0
+     * Return:
+     *      - List<int[]>: the regions of every piece
+     */
+    static List<int[]> blocks(RegionGraph graph) {
+        int n = graph.size();
+        int[] degree = new int[n + 1];
+        for (int site = 0; site < n; site++) {
+            for (int edge = graph.firstEdge(site); edge < graph.firstEdge(site + 1); edge++) {
+                degree[site + 1]++;
+                degree[graph.target(edge) + 1]++;
+            }
+        }
+        for (int site = 0; site < n; site++) {
+            degree[site + 1] += degree[site];
+        }
+        int[] neighbors = new int[degree[n]];
+        int[] fill = Arrays.copyOf(degree, n);
+        for (int site = 0; site < n; site++) {
+            for (int edge = graph.firstEdge(site); edge < graph.firstEdge(site + 1); edge++) {
+                neighbors[fill[site]++] = graph.target(edge);
+                neighbors[fill[graph.target(edge)]++] = site;
+            }
+        }
+
+        List<int[]> blocks = new ArrayList<>();
+        int[] discovered = new int[n];
+        int[] low = new int[n];
+        int[] parent = new int[n];
+        int[] cursor = Arrays.copyOf(degree, n);
+        int[] stack = new int[n];
+        int[] edgeFrom = new int[neighbors.length + 1];
+        int[] edgeTo = new int[neighbors.length + 1];
+        int[] stamp = new int[n];
+        int edges = 0;
+        int depth = 0;
+        int time = 0;
+        stack[0] = 0;
+        parent[0] = -1;
+        discovered[0] = low[0] = ++time;
+        while (depth >= 0) {
+            int site = stack[depth];
+            if (cursor[site] < degree[site + 1]) {
+                int next = neighbors[cursor[site]++];
+                if (discovered[next] == 0) {
+                    parent[next] = site;
+                    discovered[next] = low[next] = ++time;
+                    edgeFrom[edges] = site;
+                    edgeTo[edges++] = next;
+                    stack[++depth] = next;
+                } else if (next != parent[site] && discovered[next] < discovered[site]) {
+                    edgeFrom[edges] = site;
+                    edgeTo[edges++] = next;
+                    low[site] = Math.min(low[site], discovered[next]);
+                }
+                continue;
+            }
+            depth--;
+            int above = parent[site];
+            if (above < 0) {
+                continue;
+            }
+            low[above] = Math.min(low[above], low[site]);
+            if (low[site] >= discovered[above]) {
+                List<Integer> members = new ArrayList<>();
+                members.add(above);
+                stamp[above] = blocks.size() + 1;
+                int from;
+                int to;
+                do {
+                    edges--;
+                    from = edgeFrom[edges];
+                    to = edgeTo[edges];
+                    for (int member : new int[] {from, to}) {
+                        if (stamp[member] != blocks.size() + 1) {
+                            stamp[member] = blocks.size() + 1;
+                            members.add(member);
+                        }
+                    }
+                } while (from != above || to != site);
+                int[] block = new int[members.size()];
+                block[0] = above;
+                List<Integer> rest = members.subList(1, members.size());
+                Collections.sort(rest);
+                for (int i = 1; i < block.length; i++) {
+                    block[i] = rest.get(i - 1);
+                }
+                blocks.add(block);
+            }
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,298 @@
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/*
+ * This class finds the best relief path with a depth-first branch-and-bound search. Instead
+ *      of keeping every path it only remembers the best one found so far, and it skips any
+ *      branch that cannot help more people than that path, or that can only tie it on people
+ *      while already costing more. Memory stays proportional to the depth of the search.
+ *      Several searches can share one best-known bound, which is how the parallel solver
+ *      lets pruning found by one worker help the others.
+ */
+final class BranchAndBoundSolver {
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private final RegionGraph graph;
+    private final boolean prunesOnCost;
+    private final boolean startAlone;
+    private final AtomicReference<Candidate> shared;
+    private final SearchStats stats;
+
+    private final boolean[] visited;
+    private final int[] stack;
+    private final ReachableBound reachable;
+
+    private int bestPeople;
+    private double bestCost;
+    private int[] bestOrder;
+    private int bestLength;
+
+    private boolean timed;
+    private long started;
+    private long budget;
+    private int untilClockCheck;
+    private boolean stopped;
+    private int upperBound;
+
+    /*
+     * Creates a search over the given graph. Until searchFrom runs, the search has no best path
+     *      of its own, so cannotWin only prunes against the shared bound.
+     * Parameters:
+     *      - graph: the compiled regions to search
+     *      - shared: the best path known to any search running alongside this one, or null if
+     *          this search runs on its own
+     *      - stats: where to count the work done by the search, or null to skip counting
+     */
+    BranchAndBoundSolver(RegionGraph graph, AtomicReference<Candidate> shared, SearchStats stats) {
+        this.graph = graph;
+        this.shared = shared;
+        this.stats = stats;
+        int n = graph.size();
+        boolean nonNegative = true;
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            nonNegative &= graph.cost(edge) >= 0;
+        }
+        prunesOnCost = nonNegative;
+        startAlone = PathRanking.startAloneCounts(graph, 0);
+        visited = new boolean[n];
+        stack = new int[n];
+        reachable = new ReachableBound(graph);
+        bestOrder = new int[n];
+        bestPeople = Integer.MIN_VALUE;
+        bestCost = Double.POSITIVE_INFINITY;
+    }
+
+    /*
+     * Finds the best path through the given sites starting from the first site.
+     * Parameters:
+     *      - sites: the list of all the regions that need help, with the start first
+     * Return:
+     *      - Path: the best possible helping path, the same one Client.findPath picks
+     */
+    static Path solve(List<Region> sites) {
+        return solve(RegionGraph.compile(sites));
+    }
+
+    /*
+     * Finds the best path through a compiled graph starting from the region with id 0.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     * Return:
+     *      - Path: the best possible helping path, the same one Client.findPath picks
+     */
+    static Path solve(RegionGraph graph) {
+        return solve(graph, null);
+    }
+
+    /*
+     * Finds the best path through a compiled graph starting from the region with id 0, and
+     *      counts the work it took.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - stats: where to count the work done by the search, or null to skip counting
+     * Return:
+     *      - Path: the best possible helping path, the same one Client.findPath picks
+     */
+    static Path solve(RegionGraph graph, SearchStats stats) {
+        BranchAndBoundSolver solver = new BranchAndBoundSolver(graph, null, stats);
+        long started = System.nanoTime();
+        Candidate best = solver.searchFrom(new int[] {0}, graph.population(0), 0);
+        if (stats != null) {
+            stats.phase("search", System.nanoTime() - started);
+        }
+        return graph.toPath(best.order, best.order.length);
+    }
+
+    /*
+     * Finds the best path among the given prefix and all of its extensions.
+     * Parameters:
+     *      - prefix: the region ids of the path to extend, starting with id 0
+     *      - people: the people helped by the prefix
+     *      - cost: the total cost of the prefix
+     * Return:
+     *      - Candidate: the best path found, which is the prefix itself if nothing beats it
+     */
+    Candidate searchFrom(int[] prefix, int people, double cost) {
+        bestPeople = Integer.MIN_VALUE;
+        bestLength = 0;
+        stopped = false;
+        upperBound = Integer.MIN_VALUE;
+        mark(prefix, true);
+        System.arraycopy(prefix, 0, stack, 0, prefix.length);
+        search(prefix.length - 1, people, cost);
+        mark(prefix, false);
+        return new Candidate(bestPeople, bestCost, Arrays.copyOf(bestOrder, bestLength));
+    }
+
+    /*
+     * Makes the next search give up once the given amount of time has passed, or once the
+     *      thread running it is interrupted. A search that gives up still returns the best
+     *      path it found, and upperBound() tells how many people a path could possibly help.
+     * Parameters:
+     *      - nanos: how long the search may run, in nanoseconds
+     */
+    void stopAfter(long nanos) {
+        timed = true;
+        started = System.nanoTime();
+        budget = nanos;
+        untilClockCheck = 1;
+    }
+
+    /*
+     * Returns whether the last search ran out of time before it could finish.
+     */
+    boolean wasStopped() {
+        return stopped;
+    }
+
+    /*
+     * Returns the most people that any path left unexplored by the last search could help, or
+     *      Integer.MIN_VALUE if the search explored everything.
+     */
+    int upperBound() {
+        return upperBound;
+    }
+
+    /*
+     * Marks or unmarks every region of the given path as visited.
+     */
+    void mark(int[] path, boolean value) {
+        for (int site : path) {
+            visited[site] = value;
+        }
+    }
+
+    /*
+     * Explores every extension of the path currently on the stack, then offers the path itself
+     *      as a candidate. Offering a path only after its extensions matches the order
+     *      Client.findPath lists them in, so the best path so far always comes earlier in that
+     *      order than anything still left to explore, and a tie never has to replace it.
+     *      The start region alone is only offered when it cannot reach any other site.
+     *      If the search runs out of time, every path still on the stack records how many
+     *      people its unexplored extensions could help at most.
+     * Parameters:
+     *      - depth: the stack index of the last site in the current path
+     *      - people: the people helped by the current path
+     *      - cost: the total cost of the current path
+     */
+    private void search(int depth, int people, double cost) {
+        if (timed && --untilClockCheck == 0) {
+            untilClockCheck = CLOCK_INTERVAL;
+            stopped = System.nanoTime() - started >= budget || Thread.currentThread().isInterrupted();
+        }
+        if (stats != null) {
+            stats.expanded(depth + 1);
+        }
+        int end = stack[depth];
+        for (int edge = graph.firstEdge(end); edge < graph.firstEdge(end + 1) && !stopped; edge++) {
+            int next = graph.target(edge);
+            if (visited[next]) {
+                continue;
+            }
+            int nextPeople = people + graph.population(next);
+            double nextCost = cost + graph.cost(edge);
+            if (cannotWin(nextPeople + reachablePeople(next), nextCost)) {
+                continue;
+            }
+            visited[next] = true;
+            stack[depth + 1] = next;
+            search(depth + 1, nextPeople, nextCost);
+            visited[next] = false;
+        }
+        if (stopped) {
+            upperBound = Math.max(upperBound, people + reachablePeople(end));
+        }
+        if (depth == 0 && !startAlone) {
+            return;
+        }
+        if (stats != null) {
+            stats.compared();
+        }
+        if (PathRanking.compare(people, cost, bestPeople, bestCost) < 0) {
+            bestPeople = people;
+            bestCost = cost;
+            bestLength = depth + 1;
+            System.arraycopy(stack, 0, bestOrder, 0, bestLength);
+            if (shared != null) {
+                publish(shared, new Candidate(people, cost, null));
+            }
+        }
+    }
+
+    /*
+     * Checks whether a branch can be skipped. A tie with this search's own best path is enough,
+     *      since that path is listed first. The shared best may come from a branch listed later,
+     *      so it only rules out branches that are strictly worse.
+     * Parameters:
+     *      - bound: the most people any path in the branch could help
+     *      - cost: the cost already spent to reach the branch
+     * Return:
+     *      - boolean: true if nothing in the branch can beat the best path so far
+     */
+    boolean cannotWin(int bound, double cost) {
+        if (bound < bestPeople) {
+            return pruned(PruneReason.POPULATION_BOUND);
+        }
+        if (bound == bestPeople && prunesOnCost && cost >= bestCost) {
+            return pruned(PruneReason.COST_BOUND);
+        }
+        if (shared == null) {
+            return false;
+        }
+        Candidate known = shared.get();
+        if (known != null
+                && (bound < known.people || (bound == known.people && prunesOnCost && cost > known.cost))) {
+            return pruned(PruneReason.SHARED_BOUND);
+        }
+        return false;
+    }
+
+    private boolean pruned(PruneReason reason) {
+        if (stats != null) {
+            stats.pruned(reason);
+        }
+        return true;
+    }
+
+    /*
+     * Replaces the shared best with the given candidate if the candidate is strictly better.
+     *      Uses compare-and-set, so searches on other threads never block on each other.
+     */
+    static void publish(AtomicReference<Candidate> shared, Candidate candidate) {
+        Candidate known = shared.get();
+        while ((known == null || candidate.compareTo(known) < 0)
+                && !shared.compareAndSet(known, candidate)) {
+            known = shared.get();
+        }
+    }
+
+    /*
+     * Returns the people in every unvisited site that can still be reached from the given
+     *      site, not counting the site itself.
+     */
+    int reachablePeople(int from) {
+        return reachable.people(visited, from);
+    }
+
+    /*
+     * A path found by a search, along with the people it helps and what it costs.
+     */
+    static final class Candidate {
+        final int people;
+        final double cost;
+        final int[] order;
+
+        Candidate(int people, double cost, int[] order) {
+            this.people = people;
+            this.cost = cost;
+            this.order = order;
+        }
+
+        /*
+         * Compares this candidate to another on people and then cost only.
+         */
+        int compareTo(Candidate other) {
+            return PathRanking.compare(people, cost, other.people, other.cost);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+import java.util.*;
+
+/*
+ * This class finds the path that helps the most people while its total cost stays within a
+ *      budget. It is a branch-and-bound search that drops a branch as soon as its cost goes
+ *      over the budget. Its people bound only counts the unvisited regions whose cheapest
+ *      possible route from the end of the path still fits in what is left of the budget,
+ *      so tight budgets cut off most of the search before it is expanded.
+ *      The cheapest routes ignore which regions were visited, so they never overestimate the
+ *      cost of reaching a region. This assumes that no connection has a negative cost; if one
+ *      does, only the final budget check is applied.
+ *      Like Client.findPath, the start region alone is a fallback rather than a candidate: it
+ *      is only picked when no path that leaves the start fits in the budget.
+ */
+final class BudgetSolver {
+    private static final double SLACK = 1e-9;
+
+    private final RegionGraph graph;
+    private final double budget;
+    private final SearchStats stats;
+    private final boolean monotone;
+    private final double[][] cheapest;
+    private final boolean[] visited;
+    private final int[] stack;
+    private final int[] queue;
+    private final int[] seen;
+    private int stamp;
+
+    private int bestPeople;
+    private double bestCost;
+    private final int[] bestOrder;
+    private int bestLength;
+
+    private BudgetSolver(RegionGraph graph, double budget, SearchStats stats) {
+        this.graph = graph;
+        this.budget = budget;
+        this.stats = stats;
+        boolean nonNegative = true;
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            nonNegative &= graph.cost(edge) >= 0;
+        }
+        monotone = nonNegative;
+        int n = graph.size();
+        cheapest = new double[n][];
+        visited = new boolean[n];
+        stack = new int[n];
+        queue = new int[n];
+        seen = new int[n];
+        bestPeople = Integer.MIN_VALUE;
+        bestOrder = new int[n];
+    }
+
+    /*
+     * Finds the best path through the given sites whose total cost stays within the budget.
+     * Parameters:
+     *      - sites: the list of all the regions that need help, with the start first
+     *      - budget: the most the path is allowed to cost
+     * Return:
+     *      - Path: the best path within the budget, ranked like Client.bestPath
+     */
+    static Path solve(List<Region> sites, double budget) {
+        return solve(RegionGraph.compile(sites), budget);
+    }
+
+    /*
+     * Finds the best path through a compiled graph, starting from the region with id 0, whose
+     *      total cost stays within the budget.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - budget: the most the path is allowed to cost
+     * Return:
+     *      - Path: the best path within the budget, ranked like Client.bestPath
+     */
+    static Path solve(RegionGraph graph, double budget) {
+        return solve(graph, budget, null);
+    }
+
+    /*
+     * Finds the best path through a compiled graph within the budget, and counts the work it
+     *      took.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - budget: the most the path is allowed to cost
+     *      - stats: where to count the work done, or null to skip counting
+     * Return:
+     *      - Path: the best path within the budget, ranked like Client.bestPath
+     */
+    static Path solve(RegionGraph graph, double budget, SearchStats stats) {
+        BudgetSolver solver = new BudgetSolver(graph, budget, stats);
+        long started = System.nanoTime();
+        solver.visited[0] = true;
+        solver.search(0, graph.population(0), 0);
+        if (stats != null) {
+            stats.phase("search", System.nanoTime() - started);
+        }
+        return graph.toPath(solver.bestOrder, solver.bestLength);
+    }
+
+    /*
+     * Explores every extension of the path on the stack that fits in the budget, then offers
+     *      the path itself, in the same order the exhaustive search lists them. The start
+     *      region alone is only offered if nothing else was found.
+     * Parameters:
+     *      - depth: the stack index of the last site in the current path
+     *      - people: the people helped by the current path
+     *      - cost: the total cost of the current path
+     */
+    private void search(int depth, int people, double cost) {
+        if (stats != null) {
+            stats.expanded(depth + 1);
+        }
+        int end = stack[depth];
+        for (int edge = graph.firstEdge(end); edge < graph.firstEdge(end + 1); edge++) {
+            int next = graph.target(edge);
+            if (visited[next]) {
+                continue;
+            }
+            double nextCost = cost + graph.cost(edge);
+            if (monotone && nextCost > budget) {
+                pruned(PruneReason.OVER_BUDGET);
+                continue;
+            }
+            int nextPeople = people + graph.population(next);
+            if (monotone && cannotWin(nextPeople + affordablePeople(next, nextCost), nextCost)) {
+                continue;
+            }
+            visited[next] = true;
+            stack[depth + 1] = next;
+            search(depth + 1, nextPeople, nextCost);
+            visited[next] = false;
+        }
+        if (depth == 0 && bestLength > 0) {
+            return;
+        }
+        if (stats != null) {
+            stats.compared();
+        }
+        if (cost <= budget && PathRanking.compare(people, cost, bestPeople, bestCost) < 0) {
+            bestPeople = people;
+            bestCost = cost;
+            bestLength = depth + 1;
+            System.arraycopy(stack, 0, bestOrder, 0, bestLength);
+        }
+    }
+
+    private boolean cannotWin(int bound, double cost) {
+        if (bound < bestPeople) {
+            return pruned(PruneReason.POPULATION_BOUND);
+        }
+        if (bound == bestPeople && cost >= bestCost) {
+            return pruned(PruneReason.COST_BOUND);
+        }
+        return false;
+    }
+
+    private boolean pruned(PruneReason reason) {
+        if (stats != null) {
+            stats.pruned(reason);
+        }
+        return true;
+    }
+
+    /*
+     * Adds up the people in every unvisited region that could still be reached from the given
+     *      region without going over the budget. A region counts only if it can be reached
+     *      through unvisited regions and its cheapest route from the given region fits in the
+     *      money that is left.
+     * Parameters:
+     *      - from: the region the branch continues from, not yet marked as visited
+     *      - cost: the total cost of the path up to and including from
+     * Return:
+     *      - int: the people in the regions still within reach, not counting from itself
+     */
+    private int affordablePeople(int from, double cost) {
+        double[] routes = cheapestFrom(from);
+        double left = budget - cost + SLACK * Math.max(1, Math.abs(budget));
+        stamp++;
+        seen[from] = stamp;
+        queue[0] = from;
+        int head = 0;
+        int tail = 1;
+        int total = 0;
+        while (head < tail) {
+            int site = queue[head++];
+            for (int edge = graph.firstEdge(site); edge < graph.firstEdge(site + 1); edge++) {
+                int next = graph.target(edge);
+                if (!visited[next] && seen[next] != stamp && routes[next] <= left) {
+                    seen[next] = stamp;
+                    queue[tail++] = next;
+                    total += graph.population(next);
+                }
+            }
+        }
+        return total;
+    }
+
+    /*
+     * Returns the cheapest cost from the given region to every other region, working it out
+     *      with Dijkstra's algorithm the first time it is needed.
+     */
+    private double[] cheapestFrom(int from) {
+        if (cheapest[from] != null) {
+            return cheapest[from];
+        }
+        double[] routes = new double[graph.size()];
+        Arrays.fill(routes, Double.POSITIVE_INFINITY);
+        routes[from] = 0;
+        PriorityQueue<double[]> frontier = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        frontier.add(new double[] {0, from});
+        while (!frontier.isEmpty()) {
+            double[] top = frontier.poll();
+            int site = (int) top[1];
+            if (top[0] > routes[site]) {
+                continue;
+            }
+            for (int edge = graph.firstEdge(site); edge < graph.firstEdge(site + 1); edge++) {
+                int next = graph.target(edge);
+                double route = top[0] + graph.cost(edge);
+                if (route < routes[next]) {
+                    routes[next] = route;
+                    frontier.add(new double[] {route, next});
+                }
+            }
+        }
+        cheapest[from] = routes;
+        return routes;
+    }
+}
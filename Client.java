@@ -1,7 +1,10 @@
 /*
  * 2/25/25
  */
+import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
 
 /*
  * This class acts like a simulation that helps disaster relief teams determine 
@@ -44,44 +47,367 @@ public class Client {
         if (sites.isEmpty()) {
             return null;
         }
+        return findPath(sites, (SearchStats) null);
+    }
+
+    /*
+     * This runs the exhaustive search behind findPath(sites) and counts the work it took.
+     * Parameters:
+     *      - sites: the list of all the regions that need help, which cannot be empty
+     *      - stats: where to count the work done, or null to skip counting
+     * Return:
+     *      - Path: The best possible helping path between regions
+     */
+    private static Path findPath(List<Region> sites, SearchStats stats) {
+        long started = System.nanoTime();
         Path soFar = new Path();
         soFar = soFar.extend(sites.get(0));
-        List<Path> potentials = findPath(sites, soFar, new ArrayList<>());
+        List<Path> potentials = findPath(sites, soFar, new ArrayList<>(), stats);
         if (potentials.size() == 0) {
             potentials.add(soFar);
         }
-        return bestPath(potentials);
+        long listed = System.nanoTime();
+        Path best = bestPath(potentials);
+        if (stats != null) {
+            stats.compared(potentials.size());
+            stats.phase("search", listed - started);
+            stats.phase("select", System.nanoTime() - listed);
+        }
+        return best;
+    }
+
+    /*
+     * This finds the most ideal path between regions just like findPath(sites), but lets the
+     *      caller pick which search engine does the work. Every mode returns the same path.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     *      - mode: the search engine to use
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions or the mode is null
+     * Return:
+     *      - Path: The best possible helping path between regions based on people helped
+     *          and money used. Otherwise, null if the list of given region sites is empty.
+     */
+    public static Path findPath(List<Region> sites, SolverMode mode) {
+        return findPath(sites, mode, null);
+    }
+
+    /*
+     * This finds the most ideal path between regions with the chosen search engine, and fills
+     *      in the given stats with the work it took: search nodes expanded, branches pruned and
+     *      why, paths compared, the deepest path reached and the time spent in each phase.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     *      - mode: the search engine to use
+     *      - stats: where to count the work done, or null to skip counting
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions or the mode is null
+     * Return:
+     *      - Path: The best possible helping path between regions based on people helped
+     *          and money used. Otherwise, null if the list of given region sites is empty.
+     */
+    public static Path findPath(List<Region> sites, SolverMode mode, SearchStats stats) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("The solver mode cannot be null!");
+        }
+        if (sites.isEmpty()) {
+            return null;
+        }
+        if (mode == SolverMode.EXHAUSTIVE) {
+            return findPath(sites, stats);
+        }
+        long started = System.nanoTime();
+        RegionGraph graph = RegionGraph.compile(sites);
+        if (stats != null) {
+            stats.phase("compile", System.nanoTime() - started);
+        }
+        return findPath(graph, mode, stats);
+    }
+
+    /*
+     * This finds the most ideal path through an already compiled graph of regions, such as
+     *      one loaded with ScenarioFile.load, starting from the region with id 0.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - mode: the search engine to use
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the graph or the mode is null
+     * Return:
+     *      - Path: The best possible helping path between regions based on people helped
+     *          and money used. Otherwise, null if the graph has no regions.
+     */
+    public static Path findPath(RegionGraph graph, SolverMode mode) {
+        if (graph == null) {
+            throw new IllegalArgumentException("The region graph cannot be null!");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("The solver mode cannot be null!");
+        }
+        if (graph.size() == 0) {
+            return null;
+        }
+        return findPath(graph, mode, null);
+    }
+
+    /*
+     * This finds the most ideal path between regions after shrinking the problem first:
+     *      regions the first site cannot reach are dropped, chains of regions are folded
+     *      together, leaves become ends only, and the network is cut at its articulation points
+     *      so every piece is searched on its own. See GraphReduction for the details.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     *      - mode: the search engine to use on every piece
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions or the mode is null
+     * Return:
+     *      - Path: a path that helps as many people for as little money as findPath(sites).
+     *          If several paths tie on both, it may be a different one of them. Otherwise,
+     *          null if the list of given region sites is empty.
+     */
+    public static Path findPathPreprocessed(List<Region> sites, SolverMode mode) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("The solver mode cannot be null!");
+        }
+        if (sites.isEmpty()) {
+            return null;
+        }
+        return GraphReduction.of(sites).solve(mode);
+    }
+
+    /*
+     * This hands a compiled graph to the chosen search engine.
+     * Parameters:
+     *      - graph: the compiled regions that need help, with at least one region
+     *      - mode: the search engine to use
+     *      - stats: where to count the work done, or null to skip counting
+     * Return:
+     *      - Path: The best possible helping path between regions
+     */
+    private static Path findPath(RegionGraph graph, SolverMode mode, SearchStats stats) {
+        switch (mode) {
+            case SUBSET_DP:
+                return SubsetDpSolver.solve(graph, stats);
+            case BRANCH_AND_BOUND:
+                return BranchAndBoundSolver.solve(graph, stats);
+            case PARALLEL:
+                return ParallelSolver.solve(graph, ForkJoinPool.commonPool(), stats);
+            case OFF_HEAP_DP:
+                return OffHeapDpSolver.solve(graph, stats);
+            default:
+                return findPath(new ArrayList<>(graph.regions()), stats);
+        }
+    }
+
+    /*
+     * This finds the best path between regions that can be found within a fixed amount of
+     *      time. It starts with a quick greedy path and keeps improving on it until the search
+     *      either finishes or runs out of time. When it finishes, the path is the same one
+     *      findPath(sites) returns.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     *      - budget: how long the search may run
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions or the budget is null
+     * Return:
+     *      - AnytimeResult: the best path found along with an upper bound on the people any
+     *          path could help and whether the path was proven to be the best. Otherwise, null
+     *          if the list of given region sites is empty.
+     */
+    public static AnytimeResult findPath(List<Region> sites, Duration budget) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (budget == null) {
+            throw new IllegalArgumentException("The time budget cannot be null!");
+        }
+        if (sites.isEmpty()) {
+            return null;
+        }
+        return AnytimeSolver.solve(sites, budget);
+    }
+
+    /*
+     * This lists every path that relief operations can take from region one, without building
+     *      the whole list up front. Paths are made one at a time as the stream is consumed, so
+     *      it can be cut short with limit or filtered without running out of memory. Each path
+     *      comes right before all of the paths that extend it, starting with region one by
+     *      itself. The stream also supports parallel traversal.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null
+     * Return:
+     *      - Stream<Path>: every simple path that starts from region one, or an empty stream
+     *          if the list of given region sites is empty
+     */
+    public static Stream<Path> allPaths(List<Region> sites) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (sites.isEmpty()) {
+            return Stream.empty();
+        }
+        return StreamSupport.stream(new PathSpliterator(RegionGraph.compile(sites)), false);
+    }
+
+    /*
+     * This lists every path that relief operations can take from region one one at a time, in
+     *      the same order as allPaths.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null
+     * Return:
+     *      - Iterator<Path>: every simple path that starts from region one
+     */
+    public static Iterator<Path> pathIterator(List<Region> sites) {
+        return allPaths(sites).iterator();
+    }
+
+    /*
+     * This finds the k best paths between regions, so relief teams have alternative routes
+     *      ready in case a road closes. Paths are ranked the same way findPath(sites) ranks
+     *      them, and the first one returned is the path it picks.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     *      - k: how many paths to find
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null or if k is
+     *          not positive
+     * Return:
+     *      - List<Path>: up to k paths, best first. Otherwise, an empty list if the list of
+     *          given region sites is empty.
+     */
+    public static List<Path> findTopPaths(List<Region> sites, int k) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (k < 1) {
+            throw new IllegalArgumentException("At least one path has to be requested!");
+        }
+        if (sites.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return TopKSolver.solve(sites, k);
+    }
+
+    /*
+     * This finds the best path from every region at once, which helps pick where to stage a
+     *      relief depot. The path from each region is the one findPath(sites) picks when that
+     *      region is moved to the front of the list, but the work is shared between all of the
+     *      regions instead of searching once for each of them.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null or has too
+     *          many regions to solve at once
+     * Return:
+     *      - List<Path>: the best path starting from each region, in the order of the list.
+     *          Otherwise, an empty list if the list of given region sites is empty.
+     */
+    public static List<Path> findPathFromEveryStart(List<Region> sites) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (sites.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return AllStartsSolver.solve(RegionGraph.compile(sites));
+    }
+
+    /*
+     * This finds the path between regions that helps the most people without its total cost
+     *      going over a budget. Paths are ranked the same way findPath(sites) ranks them.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     *      - budget: the most the path is allowed to cost
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null or if the
+     *          budget is negative or not a number
+     * Return:
+     *      - Path: The best possible helping path that fits in the budget. Otherwise, null if
+     *          the list of given region sites is empty.
+     */
+    public static Path findPathWithinBudget(List<Region> sites, double budget) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (!(budget >= 0)) {
+            throw new IllegalArgumentException("The budget cannot be negative!");
+        }
+        if (sites.isEmpty()) {
+            return null;
+        }
+        return BudgetSolver.solve(sites, budget);
+    }
+
+    /*
+     * This finds the best path that fits in a budget just like findPathWithinBudget(sites,
+     *      budget), and fills in the given stats with the work it took.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     *      - budget: the most the path is allowed to cost
+     *      - stats: where to count the work done, or null to skip counting
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null or if the
+     *          budget is negative or not a number
+     * Return:
+     *      - Path: The best possible helping path that fits in the budget. Otherwise, null if
+     *          the list of given region sites is empty.
+     */
+    public static Path findPathWithinBudget(List<Region> sites, double budget, SearchStats stats) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (!(budget >= 0)) {
+            throw new IllegalArgumentException("The budget cannot be negative!");
+        }
+        if (sites.isEmpty()) {
+            return null;
+        }
+        long started = System.nanoTime();
+        RegionGraph graph = RegionGraph.compile(sites);
+        if (stats != null) {
+            stats.phase("compile", System.nanoTime() - started);
+        }
+        return BudgetSolver.solve(graph, budget, stats);
     }
 
     /*
      * This method contains the logic behind devising potential paths that relief operations
      *      can take. It creates and keeps track of all possibile paths that exist between
-     *      the regions provided. Any possible path can only start from region 1. 
+     *      the regions provided. Any possible path can only start from region 1. Each path
+     *      gets added right after all of the paths that extend it, so no path ever has to
+     *      be searched for in the list while it grows.
      * Parameters: 
      *      - sites: list of all the available regions that a path can be made out of
      *      - soFar: a tracker that keeps track of the regions already considered in path 
      *          calculations
      *      - potentials: a growing list of all the possible paths that relief operations can take
+     *      - stats: where to count the work done, or null to skip counting
      * Return: 
      *      - List<Path>: all the paths between regions that relief operations can take
      */
-    private static List<Path> findPath(List<Region> sites, Path soFar, List<Path> potentials) {
+    private static List<Path> findPath(List<Region> sites, Path soFar, List<Path> potentials,
+                                       SearchStats stats) {
+        if (stats != null) {
+            stats.expanded(soFar.size());
+        }
         for (int i = 1; i < sites.size(); i++) {
             if (sites.get(0).canReach(sites.get(i))) {
-                if (potentials.contains(soFar) && soFar != null) {
-                    int index = potentials.indexOf(soFar);
-                    soFar = soFar.extend(sites.get(i));
-                    potentials.add(index, soFar);
-                } else {
-                    soFar = soFar.extend(sites.get(i));
-                    potentials.add(soFar);
-                }
+                Path next = soFar.extend(sites.get(i));
                 Region removal = sites.remove(0);
                 sites.add(0, sites.remove(i - 1));
-                findPath(sites, soFar, potentials);
+                findPath(sites, next, potentials, stats);
+                potentials.add(next);
                 sites.add(i - 1, sites.remove(0));
                 sites.add(0, removal);
-                soFar = soFar.removeEnd();
             }
         }
         return potentials;
@@ -0,0 +1,424 @@
+import java.util.*;
+
+/*
+ * This class shrinks a list of regions before it is handed to a solver, and turns a path
+ *      through the smaller graph back into a path through the original regions. It takes
+ *      three steps:
+ *          - regions that cannot be reached from the first site are dropped
+ *          - a chain of two or more regions that each connect to exactly two others, both ways,
+ *              and that all have people in them is folded into one region. A path that enters
+ *              such a chain always gains people by walking all of it, so the folded region
+ *              stands for the whole chain in either direction
+ *          - a region that can only be entered from one neighbor loses its connection back to
+ *              that neighbor, which a path could never use, so the region becomes an end only.
+ *              This is what happens to leaves hanging off the network
+ *      solve() then splits what is left at its articulation points and solves every piece on
+ *      its own, see BlockSolver.
+ *      The path found this way helps the same people for the same total cost as the one
+ *      Client.findPath picks, up to rounding of the summed costs. When several paths tie on
+ *      both, it may be a different one of them.
+ */
+public final class GraphReduction {
+    private final List<Region> sites;
+    private final RegionGraph graph;
+    private final int[][] members;
+    private final int[] enteredForwardFrom;
+    private final boolean[] loopReversed;
+    private final int removedRegions;
+    private final int collapsedChains;
+    private final int endOnlyRegions;
+
+    private GraphReduction(List<Region> sites, RegionGraph graph, int[][] members,
+                           int[] enteredForwardFrom, boolean[] loopReversed, int removedRegions,
+                           int collapsedChains, int endOnlyRegions) {
+        this.sites = sites;
+        this.graph = graph;
+        this.members = members;
+        this.enteredForwardFrom = enteredForwardFrom;
+        this.loopReversed = loopReversed;
+        this.removedRegions = removedRegions;
+        this.collapsedChains = collapsedChains;
+        this.endOnlyRegions = endOnlyRegions;
+    }
+
+    /*
+     * Reduces the given regions, with the first site as the start.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null or empty
+     * Return:
+     *      - GraphReduction: the reduced graph along with what it takes to expand paths
+     */
+    public static GraphReduction of(List<Region> sites) {
+        if (sites == null || sites.isEmpty()) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        List<Region> copy = new ArrayList<>(sites);
+        RegionGraph full = RegionGraph.compile(copy);
+
+        int[] kept = reachable(full);
+        RegionGraph reached = subgraph(full, kept);
+        int n = reached.size();
+
+        int[] chainOf = new int[n];
+        Arrays.fill(chainOf, -1);
+        List<int[]> chains = new ArrayList<>();
+        List<int[]> ends = new ArrayList<>();
+        findChains(reached, chainOf, chains, ends);
+
+        int[] reducedOf = new int[n];
+        boolean[] placed = new boolean[chains.size()];
+        List<int[]> memberList = new ArrayList<>();
+        for (int site = 0; site < n; site++) {
+            int chain = chainOf[site];
+            if (chain < 0) {
+                memberList.add(new int[] {site});
+            } else if (!placed[chain]) {
+                placed[chain] = true;
+                memberList.add(chains.get(chain));
+            }
+        }
+        int m = memberList.size();
+        for (int id = 0; id < m; id++) {
+            for (int site : memberList.get(id)) {
+                reducedOf[site] = id;
+            }
+        }
+
+        int[] enteredForwardFrom = new int[m];
+        Arrays.fill(enteredForwardFrom, -1);
+        boolean[] loopReversed = new boolean[m];
+        List<Map<Integer, Double>> rows = new ArrayList<>(m);
+        for (int id = 0; id < m; id++) {
+            rows.add(new TreeMap<>());
+        }
+        for (int id = 0; id < m; id++) {
+            int[] walk = memberList.get(id);
+            if (walk.length == 1) {
+                int site = walk[0];
+                for (int edge = reached.firstEdge(site); edge < reached.firstEdge(site + 1); edge++) {
+                    int next = reached.target(edge);
+                    if (chainOf[next] < 0) {
+                        rows.get(id).put(reducedOf[next], reached.cost(edge));
+                    }
+                }
+                continue;
+            }
+            int[] chainEnds = ends.get(chainOf[walk[0]]);
+            int a = chainEnds[0];
+            int b = chainEnds[1];
+            int first = walk[0];
+            int last = walk[walk.length - 1];
+            double forward = reached.lookup(a, first);
+            double backward = reached.lookup(b, last);
+            for (int i = 0; i + 1 < walk.length; i++) {
+                forward += reached.lookup(walk[i], walk[i + 1]);
+            }
+            for (int i = walk.length - 1; i > 0; i--) {
+                backward += reached.lookup(walk[i], walk[i - 1]);
+            }
+            enteredForwardFrom[id] = reducedOf[a];
+            if (a == b) {
+                loopReversed[id] = backward < forward;
+                rows.get(reducedOf[a]).put(id, Math.min(forward, backward));
+            } else {
+                rows.get(reducedOf[a]).put(id, forward);
+                rows.get(reducedOf[b]).put(id, backward);
+                rows.get(id).put(reducedOf[a], reached.lookup(first, a));
+                rows.get(id).put(reducedOf[b], reached.lookup(last, b));
+            }
+        }
+
+        int[] from = new int[m];
+        int[] entries = new int[m];
+        for (int id = 0; id < m; id++) {
+            for (int next : rows.get(id).keySet()) {
+                entries[next]++;
+                from[next] = id;
+            }
+        }
+        int endOnly = 0;
+        for (int id = 1; id < m; id++) {
+            if (entries[id] == 1 && rows.get(id).remove(from[id]) != null) {
+                endOnly++;
+            }
+        }
+
+        String[] names = new String[m];
+        int[] population = new int[m];
+        int[] offsets = new int[m + 1];
+        for (int id = 0; id < m; id++) {
+            int[] walk = memberList.get(id);
+            names[id] = reached.name(walk[0]);
+            if (walk.length > 1) {
+                names[id] += " .. " + reached.name(walk[walk.length - 1]);
+            }
+            for (int site : walk) {
+                population[id] += reached.population(site);
+            }
+            offsets[id + 1] = offsets[id] + rows.get(id).size();
+        }
+        int[] targets = new int[offsets[m]];
+        double[] costs = new double[offsets[m]];
+        for (int id = 0; id < m; id++) {
+            int at = offsets[id];
+            for (Map.Entry<Integer, Double> edge : rows.get(id).entrySet()) {
+                targets[at] = edge.getKey();
+                costs[at] = edge.getValue();
+                at++;
+            }
+        }
+
+        int[][] members = new int[m][];
+        for (int id = 0; id < m; id++) {
+            int[] walk = memberList.get(id);
+            members[id] = new int[walk.length];
+            for (int i = 0; i < walk.length; i++) {
+                members[id][i] = kept[walk[i]];
+            }
+        }
+        return new GraphReduction(copy, RegionGraph.of(names, population, offsets, targets, costs),
+                members, enteredForwardFrom, loopReversed, full.size() - n, chains.size(), endOnly);
+    }
+
+    /*
+     * Returns the reduced graph, which can be handed to any solver through
+     *      Client.findPath(RegionGraph, SolverMode).
+     */
+    public RegionGraph getGraph() {
+        return graph;
+    }
+
+    /*
+     * Returns how many regions were dropped because the first site cannot reach them.
+     */
+    public int getRemovedRegions() {
+        return removedRegions;
+    }
+
+    /*
+     * Returns how many chains of regions were folded into a single region.
+     */
+    public int getCollapsedChains() {
+        return collapsedChains;
+    }
+
+    /*
+     * Returns how many regions were turned into ends only.
+     */
+    public int getEndOnlyRegions() {
+        return endOnlyRegions;
+    }
+
+    /*
+     * Finds the best path by solving the reduced graph one piece at a time and expands it back
+     *      into the original regions.
+     * Parameters:
+     *      - mode: the search engine to use on every piece
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the mode is null
+     * Return:
+     *      - Path: a path that helps as many people for as little cost as the one
+     *          Client.findPath picks
+     */
+    public Path solve(SolverMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("The solver mode cannot be null!");
+        }
+        int[] order = BlockSolver.solve(graph, mode);
+        return expand(order, order.length);
+    }
+
+    /*
+     * Turns a path through the reduced graph back into a path through the original regions.
+     * Parameters:
+     *      - reduced: a path made of the regions of getGraph(), starting with its first region
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the path is null, or holds a region that
+     *          is not part of the reduced graph
+     * Return:
+     *      - Path: the matching path through the original regions
+     */
+    public Path expand(Path reduced) {
+        if (reduced == null) {
+            throw new IllegalArgumentException("The path cannot be null!");
+        }
+        Map<Region, Integer> ids = new IdentityHashMap<>();
+        for (int id = 0; id < graph.size(); id++) {
+            ids.put(graph.region(id), id);
+        }
+        List<Region> regions = reduced.getRegions();
+        int[] order = new int[regions.size()];
+        for (int i = 0; i < order.length; i++) {
+            Integer id = ids.get(regions.get(i));
+            if (id == null) {
+                throw new IllegalArgumentException("The path is not part of the reduced graph: " + regions.get(i).getName());
+            }
+            order[i] = id;
+        }
+        return expand(order, order.length);
+    }
+
+    /*
+     * Turns a sequence of reduced region ids into a path through the original regions. A
+     *      folded chain is walked in the direction it was entered from.
+     */
+    private Path expand(int[] order, int length) {
+        Path path = new Path();
+        for (int i = 0; i < length; i++) {
+            int[] walk = members[order[i]];
+            boolean forward = walk.length == 1 || (enteredForwardFrom[order[i]] == order[i - 1]
+                    && !loopReversed[order[i]]);
+            for (int k = 0; k < walk.length; k++) {
+                path = path.extend(sites.get(walk[forward ? k : walk.length - 1 - k]));
+            }
+        }
+        return path;
+    }
+
+    /*
+     * Lists the ids of every region the first site can reach, in increasing order.
+     */
+    private static int[] reachable(RegionGraph graph) {
+        int n = graph.size();
+        boolean[] seen = new boolean[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        queue[tail++] = 0;
+        seen[0] = true;
+        for (int head = 0; head < tail; head++) {
+            int site = queue[head];
+            for (int edge = graph.firstEdge(site); edge < graph.firstEdge(site + 1); edge++) {
+                int next = graph.target(edge);
+                if (!seen[next]) {
+                    seen[next] = true;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        int[] kept = new int[tail];
+        int count = 0;
+        for (int site = 0; site < n; site++) {
+            if (seen[site]) {
+                kept[count++] = site;
+            }
+        }
+        return kept;
+    }
+
+    /*
+     * Builds the graph of the given regions only, numbered by their position in kept. Every
+     *      connection of a kept region leads to another kept region, since kept holds
+     *      everything reachable.
+     */
+    private static RegionGraph subgraph(RegionGraph graph, int[] kept) {
+        int n = kept.length;
+        int[] newId = new int[graph.size()];
+        for (int i = 0; i < n; i++) {
+            newId[kept[i]] = i;
+        }
+        String[] names = new String[n];
+        int[] population = new int[n];
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            names[i] = graph.name(kept[i]);
+            population[i] = graph.population(kept[i]);
+            offsets[i + 1] = offsets[i] + graph.firstEdge(kept[i] + 1) - graph.firstEdge(kept[i]);
+        }
+        int[] targets = new int[offsets[n]];
+        double[] costs = new double[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            int at = offsets[i];
+            for (int edge = graph.firstEdge(kept[i]); edge < graph.firstEdge(kept[i] + 1); edge++) {
+                targets[at] = newId[graph.target(edge)];
+                costs[at] = graph.cost(edge);
+                at++;
+            }
+        }
+        return RegionGraph.of(names, population, offsets, targets, costs);
+    }
+
+    /*
+     * Finds every chain of two or more regions that can be folded. A region can be part of a
+     *      chain if it is not the start, has people in it, and has connections to and from
+     *      exactly the same two regions.
+     * Parameters:
+     *      - graph: the graph to search
+     *      - chainOf: filled in with the index of the chain every region belongs to, or -1
+     *      - chains: filled in with the regions of every chain, in walking order
+     *      - ends: filled in with the two regions at the ends of every chain, the first one
+     *          next to the first region of the walk
+     */
+    private static void findChains(RegionGraph graph, int[] chainOf, List<int[]> chains,
+                                   List<int[]> ends) {
+        int n = graph.size();
+        int[] incoming = new int[n];
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            incoming[graph.target(edge)]++;
+        }
+        boolean[] link = new boolean[n];
+        for (int site = 1; site < n; site++) {
+            int first = graph.firstEdge(site);
+            if (graph.population(site) > 0 && incoming[site] == 2 && graph.firstEdge(site + 1) - first == 2
+                    && graph.target(first) != site && graph.target(first + 1) != site
+                    && graph.canReach(graph.target(first), site)
+                    && graph.canReach(graph.target(first + 1), site)) {
+                link[site] = true;
+            }
+        }
+        boolean[] done = new boolean[n];
+        for (int site = 1; site < n; site++) {
+            if (!link[site] || done[site]) {
+                continue;
+            }
+            int first = graph.firstEdge(site);
+            Deque<Integer> walk = new ArrayDeque<>();
+            walk.add(site);
+            done[site] = true;
+            int left = extend(graph, link, done, walk, site, graph.target(first), true);
+            int right = extend(graph, link, done, walk, site, graph.target(first + 1), false);
+            if (left < 0 || right < 0 || walk.size() < 2) {
+                continue;
+            }
+            int[] chain = new int[walk.size()];
+            int i = 0;
+            for (int member : walk) {
+                chain[i++] = member;
+            }
+            for (int member : chain) {
+                chainOf[member] = chains.size();
+            }
+            chains.add(chain);
+            ends.add(new int[] {left, right});
+        }
+    }
+
+    /*
+     * Walks along a chain away from the given region, adding every chain region it passes to
+     *      the front or the back of the walk.
+     * Return:
+     *      - int: the region the chain ends at, or -1 if the walk came back around to itself
+     */
+    private static int extend(RegionGraph graph, boolean[] link, boolean[] done, Deque<Integer> walk,
+                              int from, int to, boolean front) {
+        int previous = from;
+        int current = to;
+        while (link[current]) {
+            if (done[current]) {
+                return -1;
+            }
+            done[current] = true;
+            if (front) {
+                walk.addFirst(current);
+            } else {
+                walk.addLast(current);
+            }
+            int edge = graph.firstEdge(current);
+            int next = graph.target(edge) == previous ? graph.target(edge + 1) : graph.target(edge);
+            previous = current;
+            current = next;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * One published version of a VersionedGraph. A snapshot's regions never change once it is
+ *      published, so any number of threads can solve it at the same time without locking.
+ *      It also links to the snapshot it was published over, which the VersionedGraph lets go
+ *      of once that snapshot is too old to keep.
+ */
+public final class GraphSnapshot {
+    private final long version;
+    private final RegionGraph graph;
+    private volatile GraphSnapshot previous;
+
+    GraphSnapshot(long version, RegionGraph graph, GraphSnapshot previous) {
+        this.version = version;
+        this.graph = graph;
+        this.previous = previous;
+    }
+
+    /*
+     * Returns the version of the snapshot. The first snapshot of a graph is version 0, and
+     *      every published change adds one.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /*
+     * Returns the regions as they were when the snapshot was published.
+     */
+    public RegionGraph getGraph() {
+        return graph;
+    }
+
+    /*
+     * Finds the best path through the snapshot, starting from the first region.
+     * Parameters:
+     *      - mode: the search engine to use
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the mode is null
+     * Return:
+     *      - Path: The best possible helping path between regions
+     */
+    public Path findPath(SolverMode mode) {
+        return Client.findPath(graph, mode);
+    }
+
+    /*
+     * Returns the snapshot this one was published over, or null if there was none or it is no
+     *      longer kept.
+     */
+    GraphSnapshot previous() {
+        return previous;
+    }
+
+    /*
+     * Lets go of the snapshot this one was published over, along with every older one.
+     */
+    void forgetPrevious() {
+        previous = null;
+    }
+
+    public String toString() {
+        return "v" + version + " (" + graph.size() + " regions, " + graph.edgeCount() + " connections)";
+    }
+}
@@ -0,0 +1,536 @@
+import java.time.*;
+import java.util.*;
+
+/*
+ * This class finds a good relief path on networks far too large for the exact solvers. It
+ *      does not promise the best path, but it always returns a valid one quickly.
+ *      It works in three stages:
+ *          - a beam search from the first site, which grows several paths side by side. Every
+ *              path tries the neighbors that add the most people per unit of cost first, and
+ *              after each step only the paths helping the most people, then costing the least,
+ *              are kept
+ *          - local improvement of the best path found: adding a region between two stops or at
+ *              the end, dropping a region, swapping a region for another, and walking a stretch
+ *              of the path backwards. A move is only made if every connection it needs exists
+ *          - a number of rounds that cut the best path at a random point, grow it again with
+ *              some randomness, and improve it, keeping the result if it ranks better
+ *      Paths are ranked the same way Client.bestPath ranks them, and like Client.findPath the
+ *      path only stays at the first site when that site cannot reach any other region. With
+ *      the same seed the same path comes back, unless the time limit cuts a run short.
+ */
+public final class HeuristicSolver {
+    private static final int DEFAULT_BEAM_WIDTH = 8;
+    private static final int DEFAULT_ITERATIONS = 200;
+    private static final Duration DEFAULT_TIME_LIMIT = Duration.ofMillis(500);
+    private static final double MIN_COST = 1e-9;
+    private static final double EPSILON = 1e-9;
+    private static final double GREEDY_CHANCE = 0.75;
+
+    private final int beamWidth;
+    private final int iterations;
+    private final long timeLimit;
+    private final long seed;
+
+    /*
+     * Creates a solver with a beam of 8 paths, 200 improvement rounds, half a second of time
+     *      and a seed of 0.
+     */
+    public HeuristicSolver() {
+        this(DEFAULT_BEAM_WIDTH, DEFAULT_ITERATIONS, DEFAULT_TIME_LIMIT, 0);
+    }
+
+    /*
+     * Creates a solver with the given limits.
+     * Parameters:
+     *      - beamWidth: how many paths the beam search grows side by side
+     *      - iterations: how many cut-and-regrow rounds to run after the first improvement
+     *      - timeLimit: how long a single solve may run
+     *      - seed: the seed for every random choice the solver makes
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the beam width is less than 1, the
+     *          number of iterations is negative, or the time limit is null or negative
+     */
+    public HeuristicSolver(int beamWidth, int iterations, Duration timeLimit, long seed) {
+        if (beamWidth < 1) {
+            throw new IllegalArgumentException("The beam has to hold at least one path!");
+        }
+        if (iterations < 0) {
+            throw new IllegalArgumentException("The number of iterations cannot be negative!");
+        }
+        if (timeLimit == null || timeLimit.isNegative()) {
+            throw new IllegalArgumentException("The time limit cannot be negative!");
+        }
+        this.beamWidth = beamWidth;
+        this.iterations = iterations;
+        this.timeLimit = timeLimit.toNanos();
+        this.seed = seed;
+    }
+
+    /*
+     * Finds a good path through the given sites starting from the first site.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null
+     * Return:
+     *      - Path: a good helping path between regions. Otherwise, null if the list of given
+     *          region sites is empty.
+     */
+    public Path solve(List<Region> sites) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (sites.isEmpty()) {
+            return null;
+        }
+        return solve(RegionGraph.compile(sites));
+    }
+
+    /*
+     * Finds a good path through a compiled graph starting from the region with id 0.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the graph is null
+     * Return:
+     *      - Path: a good helping path between regions. Otherwise, null if the graph has no
+     *          regions.
+     */
+    public Path solve(RegionGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("The region graph cannot be null!");
+        }
+        if (graph.size() == 0) {
+            return null;
+        }
+        Search search = new Search(graph);
+        search.run();
+        return graph.toPath(search.bestOrder, search.bestLength);
+    }
+
+    /*
+     * One run of the solver over one graph, along with the path it is working on.
+     */
+    private final class Search {
+        private final RegionGraph graph;
+        private final Random random;
+        private final long started;
+        private final boolean startAlone;
+
+        private final int[] order;
+        private final boolean[] used;
+        private final int[] position;
+        private final double[] forward;
+        private final double[] backward;
+        private final int[] missing;
+        private int length;
+        private int people;
+        private double cost;
+
+        private int[] bestOrder;
+        private int bestLength;
+        private int bestPeople;
+        private double bestCost;
+
+        Search(RegionGraph graph) {
+            this.graph = graph;
+            random = new Random(seed);
+            started = System.nanoTime();
+            startAlone = PathRanking.startAloneCounts(graph, 0);
+            int n = graph.size();
+            order = new int[n];
+            used = new boolean[n];
+            position = new int[n];
+            forward = new double[n];
+            backward = new double[n];
+            missing = new int[n];
+            bestOrder = new int[n];
+        }
+
+        /*
+         * Runs every stage of the solver and leaves the best path in bestOrder.
+         */
+        void run() {
+            beam();
+            improve();
+            remember();
+            for (int round = 0; round < iterations && !timeUp(); round++) {
+                int cut = 1 + random.nextInt(length);
+                while (length > cut) {
+                    removeLast();
+                }
+                regrow();
+                improve();
+                if ((length > 1 || startAlone)
+                        && PathRanking.compare(people, cost, bestPeople, bestCost) < 0) {
+                    remember();
+                } else {
+                    restore();
+                }
+            }
+        }
+
+        /*
+         * Grows up to beamWidth paths side by side from the first site and loads the best path
+         *      seen at any step into order. The first step is always taken, even once time is
+         *      up, so a first site with neighbors never ends up as the whole path.
+         */
+        private void beam() {
+            int words = (graph.size() + Long.SIZE - 1) / Long.SIZE;
+            BeamState root = new BeamState(null, 0, new long[words], graph.population(0), 0);
+            root.visited[0] = 1L;
+            BeamState best = startAlone ? root : null;
+            List<BeamState> level = new ArrayList<>();
+            level.add(root);
+            while (!level.isEmpty() && (best == null || !timeUp())) {
+                List<BeamState> next = new ArrayList<>();
+                for (BeamState state : level) {
+                    for (int edge : bestSteps(state)) {
+                        int site = graph.target(edge);
+                        long[] visited = state.visited.clone();
+                        visited[site >>> 6] |= 1L << site;
+                        BeamState child = new BeamState(state, site, visited,
+                                state.people + graph.population(site), state.cost + graph.cost(edge));
+                        next.add(child);
+                        if (best == null
+                                || PathRanking.compare(child.people, child.cost, best.people, best.cost) < 0) {
+                            best = child;
+                        }
+                    }
+                }
+                next.sort((a, b) -> PathRanking.compare(a.people, a.cost, b.people, b.cost));
+                level = new ArrayList<>();
+                for (BeamState state : next) {
+                    if (level.size() == beamWidth) {
+                        break;
+                    }
+                    if (!repeats(level, state)) {
+                        level.add(state);
+                    }
+                }
+            }
+            length = 0;
+            for (BeamState state = best; state != null; state = state.parent) {
+                length++;
+            }
+            int at = length;
+            for (BeamState state = best; state != null; state = state.parent) {
+                order[--at] = state.site;
+                used[state.site] = true;
+            }
+            people = best.people;
+            cost = best.cost;
+        }
+
+        /*
+         * Picks the connections out of the end of a beam path that add the most people per
+         *      unit of cost, at most beamWidth of them.
+         */
+        private List<Integer> bestSteps(BeamState state) {
+            List<Integer> steps = new ArrayList<>();
+            for (int edge = graph.firstEdge(state.site); edge < graph.firstEdge(state.site + 1); edge++) {
+                int site = graph.target(edge);
+                if ((state.visited[site >>> 6] & (1L << site)) == 0) {
+                    steps.add(edge);
+                }
+            }
+            steps.sort((a, b) -> Double.compare(ratio(b), ratio(a)));
+            return steps.size() > beamWidth ? steps.subList(0, beamWidth) : steps;
+        }
+
+        /*
+         * Checks whether a kept beam path already covers the same regions and ends at the same
+         *      place as the given one. Such a path ranks at least as well, so the other adds
+         *      nothing to the beam.
+         */
+        private boolean repeats(List<BeamState> kept, BeamState state) {
+            for (BeamState other : kept) {
+                if (other.site == state.site && Arrays.equals(other.visited, state.visited)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /*
+         * Returns the people a connection adds per unit of its cost.
+         */
+        private double ratio(int edge) {
+            return graph.population(graph.target(edge)) / Math.max(graph.cost(edge), MIN_COST);
+        }
+
+        /*
+         * Grows the current path from its end one region at a time until it gets stuck.
+         *      Usually the neighbor adding the most people per unit of cost is picked, and
+         *      otherwise a random one, so that every round explores a different path.
+         */
+        private void regrow() {
+            List<Integer> steps = new ArrayList<>();
+            while (!timeUp()) {
+                int end = order[length - 1];
+                steps.clear();
+                int best = -1;
+                for (int edge = graph.firstEdge(end); edge < graph.firstEdge(end + 1); edge++) {
+                    if (!used[graph.target(edge)]) {
+                        steps.add(edge);
+                        if (best < 0 || ratio(edge) > ratio(best)) {
+                            best = edge;
+                        }
+                    }
+                }
+                if (best < 0) {
+                    return;
+                }
+                int edge = random.nextDouble() < GREEDY_CHANCE ? best : steps.get(random.nextInt(steps.size()));
+                append(graph.target(edge), graph.cost(edge));
+            }
+        }
+
+        /*
+         * Applies improving moves to the current path until none is left or time runs out.
+         */
+        private void improve() {
+            boolean improved = true;
+            while (improved && !timeUp()) {
+                improved = insert();
+                improved |= replace();
+                improved |= remove();
+                improved |= reverse();
+            }
+        }
+
+        /*
+         * Tries to add an unused region after every stop on the path.
+         */
+        private boolean insert() {
+            boolean improved = false;
+            for (int i = 0; i < length && !timeUp(); i++) {
+                int before = order[i];
+                int after = i + 1 < length ? order[i + 1] : -1;
+                double dropped = after < 0 ? 0 : graph.lookup(before, after);
+                for (int edge = graph.firstEdge(before); edge < graph.firstEdge(before + 1); edge++) {
+                    int site = graph.target(edge);
+                    if (used[site]) {
+                        continue;
+                    }
+                    double onward = after < 0 ? 0 : graph.lookup(site, after);
+                    if (Double.isNaN(onward)) {
+                        continue;
+                    }
+                    int gained = graph.population(site);
+                    double spent = graph.cost(edge) + onward - dropped;
+                    if (better(gained, spent)) {
+                        System.arraycopy(order, i + 1, order, i + 2, length - i - 1);
+                        order[i + 1] = site;
+                        used[site] = true;
+                        length++;
+                        people += gained;
+                        cost += spent;
+                        improved = true;
+                        after = site;
+                        dropped = graph.cost(edge);
+                    }
+                }
+            }
+            return improved;
+        }
+
+        /*
+         * Tries to swap every stop on the path, other than the first, for an unused region.
+         */
+        private boolean replace() {
+            boolean improved = false;
+            for (int i = 1; i < length && !timeUp(); i++) {
+                int before = order[i - 1];
+                int after = i + 1 < length ? order[i + 1] : -1;
+                for (int edge = graph.firstEdge(before); edge < graph.firstEdge(before + 1); edge++) {
+                    int site = graph.target(edge);
+                    if (used[site]) {
+                        continue;
+                    }
+                    double onward = after < 0 ? 0 : graph.lookup(site, after);
+                    if (Double.isNaN(onward)) {
+                        continue;
+                    }
+                    int current = order[i];
+                    double old = graph.lookup(before, current) + (after < 0 ? 0 : graph.lookup(current, after));
+                    int gained = graph.population(site) - graph.population(current);
+                    double spent = graph.cost(edge) + onward - old;
+                    if (better(gained, spent)) {
+                        used[current] = false;
+                        used[site] = true;
+                        order[i] = site;
+                        people += gained;
+                        cost += spent;
+                        improved = true;
+                    }
+                }
+            }
+            return improved;
+        }
+
+        /*
+         * Tries to drop every stop on the path, other than the first. This only pays off for
+         *      regions without people that cost more to pass through than to go around. The
+         *      last stop after the first is kept unless the first site has no neighbors.
+         */
+        private boolean remove() {
+            boolean improved = false;
+            for (int i = 1; i < length && (length > 2 || startAlone) && !timeUp(); i++) {
+                int before = order[i - 1];
+                int current = order[i];
+                int after = i + 1 < length ? order[i + 1] : -1;
+                double bridge = after < 0 ? 0 : graph.lookup(before, after);
+                if (Double.isNaN(bridge)) {
+                    continue;
+                }
+                int gained = -graph.population(current);
+                double spent = bridge - graph.lookup(before, current)
+                        - (after < 0 ? 0 : graph.lookup(current, after));
+                if (better(gained, spent)) {
+                    used[current] = false;
+                    System.arraycopy(order, i + 1, order, i, length - i - 1);
+                    length--;
+                    people += gained;
+                    cost += spent;
+                    improved = true;
+                    i--;
+                }
+            }
+            return improved;
+        }
+
+        /*
+         * Tries to walk stretches of the path backwards. A stretch can only be reversed if the
+         *      stop before it connects to its last region, so only those stretches are looked
+         *      at. This keeps the same regions, so it only pays off when it makes the path
+         *      cheaper.
+         */
+        private boolean reverse() {
+            boolean improved = false;
+            tally();
+            for (int i = 1; i + 1 < length && !timeUp(); i++) {
+                int before = order[i - 1];
+                for (int edge = graph.firstEdge(before); edge < graph.firstEdge(before + 1); edge++) {
+                    int site = graph.target(edge);
+                    int j = position[site];
+                    if (!used[site] || j <= i || missing[j] != missing[i]) {
+                        continue;
+                    }
+                    double out = j + 1 < length ? graph.lookup(order[i], order[j + 1]) : 0;
+                    if (Double.isNaN(out)) {
+                        continue;
+                    }
+                    double spent = graph.cost(edge) + (backward[j] - backward[i]) + out
+                            - graph.lookup(before, order[i]) - (forward[j] - forward[i])
+                            - (j + 1 < length ? graph.lookup(order[j], order[j + 1]) : 0);
+                    if (better(0, spent)) {
+                        for (int a = i, b = j; a < b; a++, b--) {
+                            int swap = order[a];
+                            order[a] = order[b];
+                            order[b] = swap;
+                        }
+                        cost += spent;
+                        improved = true;
+                        tally();
+                        break;
+                    }
+                }
+            }
+            return improved;
+        }
+
+        /*
+         * Records where every region sits on the current path, and running totals of the cost
+         *      of walking the path forwards and backwards up to every stop, along with how many
+         *      backward connections are missing along the way.
+         */
+        private void tally() {
+            for (int i = 0; i < length; i++) {
+                position[order[i]] = i;
+            }
+            for (int i = 1; i < length; i++) {
+                double back = graph.lookup(order[i], order[i - 1]);
+                forward[i] = forward[i - 1] + graph.lookup(order[i - 1], order[i]);
+                backward[i] = backward[i - 1] + (Double.isNaN(back) ? 0 : back);
+                missing[i] = missing[i - 1] + (Double.isNaN(back) ? 1 : 0);
+            }
+        }
+
+        /*
+         * Checks whether a move that gains the given people and spends the given money makes
+         *      the path rank better.
+         */
+        private boolean better(int gained, double spent) {
+            return gained > 0 || (gained == 0 && spent < -EPSILON);
+        }
+
+        private void append(int site, double step) {
+            order[length++] = site;
+            used[site] = true;
+            people += graph.population(site);
+            cost += step;
+        }
+
+        private void removeLast() {
+            int site = order[--length];
+            used[site] = false;
+            people -= graph.population(site);
+            cost -= graph.lookup(order[length - 1], site);
+        }
+
+        /*
+         * Saves the current path as the best one, recounting its cost from scratch so that
+         *      rounding does not build up over many moves.
+         */
+        private void remember() {
+            cost = 0;
+            for (int i = 1; i < length; i++) {
+                cost += graph.lookup(order[i - 1], order[i]);
+            }
+            System.arraycopy(order, 0, bestOrder, 0, length);
+            bestLength = length;
+            bestPeople = people;
+            bestCost = cost;
+        }
+
+        /*
+         * Puts the best path back as the current one.
+         */
+        private void restore() {
+            for (int i = 0; i < length; i++) {
+                used[order[i]] = false;
+            }
+            System.arraycopy(bestOrder, 0, order, 0, bestLength);
+            length = bestLength;
+            for (int i = 0; i < length; i++) {
+                used[order[i]] = true;
+            }
+            people = bestPeople;
+            cost = bestCost;
+        }
+
+        private boolean timeUp() {
+            return System.nanoTime() - started >= timeLimit;
+        }
+    }
+
+    /*
+     * A path grown by the beam search, stored as its last region and the path before it.
+     */
+    private static final class BeamState {
+        final BeamState parent;
+        final int site;
+        final long[] visited;
+        final int people;
+        final double cost;
+
+        BeamState(BeamState parent, int site, long[] visited, int people, double cost) {
+            this.parent = parent;
+            this.site = site;
+            this.visited = visited;
+            this.people = people;
+            this.cost = cost;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/*
+ * This class runs the same dynamic program as SubsetDpSolver, but keeps its table outside of
+ *      the Java heap so that it can go past the size where arrays stop fitting.
+ *      The states are worked through in layers by how many sites they have visited. Every
+ *      state in a layer is only ever entered from the layer before it, so only the costs of two
+ *      layers are needed at any time. They live in two memory-mapped temporary files that take
+ *      turns being the layer read from and the layer written to. Inside a layer, the visited
+ *      sets are stored in colexicographic order, which is the order Gosper's hack walks them in,
+ *      and every set holds one slot per site it could end at.
+ *      To rebuild the path, and to break exact cost ties the way Client.findPath does, the
+ *      predecessor of every state in every layer is kept as one byte in a third file.
+ *      At 30 sites the two largest cost layers take about 17 GB and the predecessors about
+ *      8 GB, all paged in by the operating system as needed.
+ */
+final class OffHeapDpSolver {
+    private static final double UNREACHED = Double.POSITIVE_INFINITY;
+    private static final int MAX_SITES = Integer.SIZE;
+
+    private final RegionGraph graph;
+    private final SearchStats stats;
+    private final int n;
+    private final int bits;
+    private final long[][] choose;
+    private final long[] layerStart;
+
+    private MappedDoubles current;
+    private MappedDoubles next;
+    private final MappedBytes previous;
+
+    private int bestPeople;
+    private double bestCost;
+    private int bestMask;
+    private int bestEnd;
+
+    private OffHeapDpSolver(RegionGraph graph, SearchStats stats, java.nio.file.Path directory)
+            throws IOException {
+        this.graph = graph;
+        this.stats = stats;
+        n = graph.size();
+        if (n > MAX_SITES) {
+            throw new IllegalArgumentException("Too many sites for the off-heap DP solver: " + n);
+        }
+        bits = n - 1;
+        choose = new long[bits + 1][bits + 2];
+        for (int i = 0; i <= bits; i++) {
+            choose[i][0] = 1;
+            for (int k = 1; k <= i; k++) {
+                choose[i][k] = choose[i - 1][k - 1] + (k <= i - 1 ? choose[i - 1][k] : 0);
+            }
+        }
+        layerStart = new long[bits + 2];
+        long widest = 1;
+        for (int k = 0; k <= bits; k++) {
+            long size = layerSize(k);
+            layerStart[k + 1] = layerStart[k] + size;
+            widest = Math.max(widest, size);
+        }
+        current = new MappedDoubles(directory, widest);
+        next = new MappedDoubles(directory, widest);
+        previous = new MappedBytes(directory, Math.max(1, layerStart[bits + 1]));
+    }
+
+    /*
+     * Finds the best path through a compiled graph starting from the region with id 0.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - stats: where to count the work done, or null to skip counting
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the graph has more than 32 sites
+     *      - UncheckedIOException(): gets thrown if the temporary files cannot be made
+     * Return:
+     *      - Path: the best possible helping path, the same one Client.findPath picks
+     */
+    static Path solve(RegionGraph graph, SearchStats stats) {
+        return solve(graph, Paths.get(System.getProperty("java.io.tmpdir")), stats);
+    }
+
+    /*
+     * Finds the best path through a compiled graph, keeping the table in the given directory.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - directory: where to put the temporary files, which are removed afterwards
+     *      - stats: where to count the work done, or null to skip counting
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the graph has more than 32 sites
+     *      - UncheckedIOException(): gets thrown if the temporary files cannot be made
+     * Return:
+     *      - Path: the best possible helping path, the same one Client.findPath picks
+     */
+    static Path solve(RegionGraph graph, java.nio.file.Path directory, SearchStats stats) {
+        OffHeapDpSolver solver = null;
+        try {
+            solver = new OffHeapDpSolver(graph, stats, directory);
+            long started = System.nanoTime();
+            int[] order = solver.run();
+            if (stats != null) {
+                stats.phase("layers", System.nanoTime() - started);
+            }
+            return graph.toPath(order, order.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (solver != null) {
+                solver.close();
+            }
+        }
+    }
+
+    /*
+     * Works through every layer, keeping track of the best state seen, and rebuilds its path.
+     *      The start alone is only the best state to begin with if it has no neighbors;
+     *      otherwise there is none until the first layer is checked.
+     */
+    private int[] run() {
+        bestPeople = graph.population(0);
+        bestCost = 0;
+        bestMask = 0;
+        bestEnd = PathRanking.startAloneCounts(graph, 0) ? 0 : -1;
+        if (bits == 0) {
+            return new int[] {0};
+        }
+        next.fill(layerSize(1), UNREACHED);
+        for (int edge = graph.firstEdge(0); edge < graph.firstEdge(1); edge++) {
+            int site = graph.target(edge);
+            if (site != 0) {
+                next.set(rank(bit(site), 1), graph.cost(edge));
+            }
+        }
+        for (int k = 1; k <= bits; k++) {
+            MappedDoubles swap = current;
+            current = next;
+            next = swap;
+            if (k < bits) {
+                next.fill(layerSize(k + 1), UNREACHED);
+            }
+            layer(k);
+        }
+        return sequence(bestMask, bestEnd);
+    }
+
+    /*
+     * Checks every state of layer k against the best so far, and pushes it on to layer k + 1.
+     */
+    private void layer(int k) {
+        long masks = choose[bits][k];
+        int mask = (1 << k) - 1;
+        for (long r = 0; r < masks; r++) {
+            int people = graph.population(0);
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                people += graph.population(Integer.numberOfTrailingZeros(rest) + 1);
+            }
+            int slot = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1, slot++) {
+                int end = Integer.numberOfTrailingZeros(rest) + 1;
+                double soFar = current.get(r * k + slot);
+                if (soFar == UNREACHED) {
+                    continue;
+                }
+                if (stats != null) {
+                    stats.expanded(k + 1);
+                    stats.compared();
+                }
+                offer(people, soFar, mask, end);
+                if (k < bits) {
+                    push(k, mask, end, soFar);
+                }
+            }
+            if (r + 1 < masks) {
+                int low = mask & -mask;
+                int ripple = mask + low;
+                mask = (((ripple ^ mask) >>> 2) / low) | ripple;
+            }
+        }
+    }
+
+    /*
+     * Relaxes every state of layer k + 1 that (mask, end) leads to.
+     */
+    private void push(int k, int mask, int end, double soFar) {
+        for (int edge = graph.firstEdge(end); edge < graph.firstEdge(end + 1); edge++) {
+            int site = graph.target(edge);
+            if (site == 0 || (mask & bit(site)) != 0) {
+                continue;
+            }
+            int extended = mask | bit(site);
+            long state = rank(extended, k + 1) * (k + 1) + Integer.bitCount(extended & (bit(site) - 1));
+            double cost = soFar + graph.cost(edge);
+            double known = next.get(state);
+            long index = layerStart[k + 1] + state;
+            if (cost < known || (cost == known && listedBefore(mask, end, previous.get(index)))) {
+                next.set(state, cost);
+                previous.set(index, (byte) end);
+            }
+        }
+    }
+
+    /*
+     * Keeps (mask, end) as the best state if it ranks ahead of the best so far, exactly like
+     *      Client.bestPath.
+     */
+    private void offer(int people, double cost, int mask, int end) {
+        int order = bestEnd < 0 ? -1 : PathRanking.compare(people, cost, bestPeople, bestCost);
+        if (order == 0) {
+            int[] a = sequence(mask, end);
+            int[] b = sequence(bestMask, bestEnd);
+            order = PathRanking.comparePostOrder(a, a.length, b, b.length);
+        }
+        if (order < 0) {
+            bestPeople = people;
+            bestCost = cost;
+            bestMask = mask;
+            bestEnd = end;
+        }
+    }
+
+    /*
+     * Checks whether the cheapest path for (mask, end) is listed before the cheapest path for
+     *      (mask, other) by the exhaustive search. Only reached on an exact cost tie.
+     */
+    private boolean listedBefore(int mask, int end, int other) {
+        int[] a = sequence(mask, end);
+        int[] b = sequence(mask, other);
+        return PathRanking.comparePostOrder(a, a.length, b, b.length) < 0;
+    }
+
+    /*
+     * Walks the stored predecessors of (mask, end) back to the first site.
+     * Return:
+     *      - int[]: the site indexes of the path, starting with the first site
+     */
+    private int[] sequence(int mask, int end) {
+        int k = Integer.bitCount(mask);
+        int[] order = new int[k + 1];
+        for (int i = k; i > 0; i--) {
+            order[i] = end;
+            long state = rank(mask, i) * i + Integer.bitCount(mask & (bit(end) - 1));
+            int before = previous.get(layerStart[i] + state);
+            mask &= ~bit(end);
+            end = before;
+        }
+        return order;
+    }
+
+    /*
+     * Returns the position of a visited set among all sets of the same size, in the order
+     *      Gosper's hack walks them.
+     */
+    private long rank(int mask, int k) {
+        long rank = 0;
+        int i = 1;
+        for (int rest = mask; rest != 0; rest &= rest - 1, i++) {
+            rank += choose[Integer.numberOfTrailingZeros(rest)][i];
+        }
+        return rank;
+    }
+
+    private long layerSize(int k) {
+        return choose[bits][k] * k;
+    }
+
+    private static int bit(int site) {
+        return 1 << (site - 1);
+    }
+
+    private void close() {
+        current.close();
+        next.close();
+        previous.close();
+    }
+
+    /*
+     * A temporary file of doubles mapped into memory in chunks of up to 1 GB, since a single
+     *      mapping cannot be larger than 2 GB.
+     */
+    private static final class MappedDoubles {
+        private static final int SHIFT = 27;
+        private static final long MASK = (1L << SHIFT) - 1;
+
+        private final FileChannel channel;
+        private final DoubleBuffer[] chunks;
+
+        MappedDoubles(java.nio.file.Path directory, long size) throws IOException {
+            java.nio.file.Path file = Files.createTempFile(directory, "relief-dp", ".bin");
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+            chunks = new DoubleBuffer[(int) ((size + MASK) >>> SHIFT)];
+            for (int i = 0; i < chunks.length; i++) {
+                long count = Math.min(MASK + 1, size - ((long) i << SHIFT));
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, ((long) i << SHIFT) * Double.BYTES,
+                        count * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+            }
+        }
+
+        double get(long index) {
+            return chunks[(int) (index >>> SHIFT)].get((int) (index & MASK));
+        }
+
+        void set(long index, double value) {
+            chunks[(int) (index >>> SHIFT)].put((int) (index & MASK), value);
+        }
+
+        void fill(long size, double value) {
+            for (long i = 0; i < size; i++) {
+                set(i, value);
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /*
+     * A temporary file of bytes mapped into memory in chunks of up to 1 GB.
+     */
+    private static final class MappedBytes {
+        private static final int SHIFT = 30;
+        private static final long MASK = (1L << SHIFT) - 1;
+
+        private final FileChannel channel;
+        private final MappedByteBuffer[] chunks;
+
+        MappedBytes(java.nio.file.Path directory, long size) throws IOException {
+            java.nio.file.Path file = Files.createTempFile(directory, "relief-dp", ".bin");
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+            chunks = new MappedByteBuffer[(int) ((size + MASK) >>> SHIFT)];
+            for (int i = 0; i < chunks.length; i++) {
+                long count = Math.min(MASK + 1, size - ((long) i << SHIFT));
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << SHIFT, count);
+            }
+        }
+
+        int get(long index) {
+            return chunks[(int) (index >>> SHIFT)].get((int) (index & MASK));
+        }
+
+        void set(long index, byte value) {
+            chunks[(int) (index >>> SHIFT)].put((int) (index & MASK), value);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/*
+ * This class runs the branch-and-bound search on every core with a ForkJoinPool. The search
+ *      tree is split into one task per branch for the first few levels below the start region,
+ *      and each task below that runs the ordinary depth-first search. All tasks share the best
+ *      bound found so far, so pruning discovered by one worker helps the others.
+ *      Task results are merged in the same order the exhaustive search lists paths, which makes
+ *      the answer deterministic and identical to the single-threaded one.
+ */
+final class ParallelSolver {
+    private static final int SPLIT_DEPTH = 2;
+
+    private ParallelSolver() {
+    }
+
+    /*
+     * Finds the best path through the given sites starting from the first site, using the
+     *      common ForkJoinPool.
+     * Parameters:
+     *      - sites: the list of all the regions that need help, with the start first
+     * Return:
+     *      - Path: the best possible helping path, the same one Client.findPath picks
+     */
+    static Path solve(List<Region> sites) {
+        return solve(RegionGraph.compile(sites), ForkJoinPool.commonPool(), null);
+    }
+
+    /*
+     * Finds the best path through a compiled graph starting from the region with id 0.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - pool: the pool to run the search tasks on
+     *      - stats: where to count the work done by every task, or null to skip counting
+     * Return:
+     *      - Path: the best possible helping path, the same one Client.findPath picks
+     */
+    static Path solve(RegionGraph graph, ForkJoinPool pool, SearchStats stats) {
+        AtomicReference<BranchAndBoundSolver.Candidate> shared = new AtomicReference<>();
+        long started = System.nanoTime();
+        BranchAndBoundSolver.Candidate best =
+                pool.invoke(new Branch(graph, shared, stats, new int[] {0}, graph.population(0), 0));
+        if (stats != null) {
+            stats.phase("search", System.nanoTime() - started);
+        }
+        return graph.toPath(best.order, best.order.length);
+    }
+
+    /*
+     * One branch of the search tree, made of a prefix path and all of its extensions.
+     */
+    private static final class Branch extends RecursiveTask<BranchAndBoundSolver.Candidate> {
+        private static final long serialVersionUID = 1L;
+
+        private final RegionGraph graph;
+        private final AtomicReference<BranchAndBoundSolver.Candidate> shared;
+        private final SearchStats stats;
+        private final int[] prefix;
+        private final int people;
+        private final double cost;
+
+        Branch(RegionGraph graph, AtomicReference<BranchAndBoundSolver.Candidate> shared,
+               SearchStats stats, int[] prefix, int people, double cost) {
+            this.graph = graph;
+            this.shared = shared;
+            this.stats = stats;
+            this.prefix = prefix;
+            this.people = people;
+            this.cost = cost;
+        }
+
+        /*
+         * Searches the branch, either directly or by forking one task per extension of the
+         *      prefix and merging their results in listing order. The prefix itself is offered
+         *      last, since the exhaustive search lists a path after all of its extensions, and
+         *      the start region alone is only offered when it cannot reach any other site.
+         * Return:
+         *      - Candidate: the best path in the branch
+         */
+        @Override
+        protected BranchAndBoundSolver.Candidate compute() {
+            SearchStats counted = stats == null ? null : new SearchStats();
+            BranchAndBoundSolver.Candidate best = search(counted);
+            if (counted != null) {
+                stats.merge(counted);
+            }
+            return best;
+        }
+
+        private BranchAndBoundSolver.Candidate search(SearchStats counted) {
+            BranchAndBoundSolver search = new BranchAndBoundSolver(graph, shared, counted);
+            if (prefix.length > SPLIT_DEPTH) {
+                return search.searchFrom(prefix, people, cost);
+            }
+            if (counted != null) {
+                counted.expanded(prefix.length);
+            }
+            search.mark(prefix, true);
+            int end = prefix[prefix.length - 1];
+            List<Branch> children = new ArrayList<>();
+            for (int edge = graph.firstEdge(end); edge < graph.firstEdge(end + 1); edge++) {
+                int next = graph.target(edge);
+                if (contains(prefix, next)) {
+                    continue;
+                }
+                int nextPeople = people + graph.population(next);
+                double nextCost = cost + graph.cost(edge);
+                if (search.cannotWin(nextPeople + search.reachablePeople(next), nextCost)) {
+                    continue;
+                }
+                int[] extended = Arrays.copyOf(prefix, prefix.length + 1);
+                extended[prefix.length] = next;
+                children.add(new Branch(graph, shared, stats, extended, nextPeople, nextCost));
+            }
+            invokeAll(children);
+            BranchAndBoundSolver.Candidate best = null;
+            for (Branch child : children) {
+                BranchAndBoundSolver.Candidate found = child.join();
+                if (counted != null) {
+                    counted.compared();
+                }
+                if (best == null || found.compareTo(best) < 0) {
+                    best = found;
+                }
+            }
+            if (prefix.length == 1 && !PathRanking.startAloneCounts(graph, 0)) {
+                return best;
+            }
+            BranchAndBoundSolver.Candidate self = new BranchAndBoundSolver.Candidate(people, cost, prefix);
+            if (counted != null) {
+                counted.compared();
+            }
+            BranchAndBoundSolver.publish(shared, self);
+            if (best == null || self.compareTo(best) < 0) {
+                best = self;
+            }
+            return best;
+        }
+
+        private static boolean contains(int[] path, int site) {
+            for (int visited : path) {
+                if (visited == site) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -3,32 +3,71 @@ import java.util.*;
 /**
  * The Path class represents an unmodifiable relief solution.
  * It provides methods to retrieve the total cost and total helped population
- * of the solution. 
+ * of the solution. Each Path shares its regions with the Path it was extended
+ * from, so extending a Path or removing its end takes constant time. The cost of
+ * each step is read when the step is added, so the regions on a Path should not
+ * have their connections changed while the Path is in use.
  */
 public class Path {
 
-    private List<Region> regions;
+    private final Path prefix;
+    private final Region first;
+    private final Region last;
+    private final int size;
+    private final int people;
+    private final double cost;
+    private final int hash;
+    private final Members members;
 
     /**
-     * Creates a new Path object representing the given regions.
-     * @param regions the regions in the solution
+     * Creates a new Path object made of the given prefix with one more region at the end.
+     * The new Path shares the prefix instead of copying it, and keeps running totals
+     * so that none of the queries below have to walk the regions.
+     * @param prefix the Path that the new Path extends
+     * @param r the region at the end of the new Path
      */
-    private Path(List<Region> regions) {
-        this.regions = new ArrayList<>(regions);
+    private Path(Path prefix, Region r) {
+        this.prefix = prefix;
+        this.first = prefix.size == 0 ? r : prefix.first;
+        this.last = r;
+        this.size = prefix.size + 1;
+        this.people = prefix.people + r.getPopulation();
+        if (prefix.size == 0) {
+            this.cost = 0;
+        } else if (prefix.last.canReach(r)) {
+            this.cost = prefix.cost + prefix.last.getCostTo(r);
+        } else {
+            this.cost = Double.NaN;
+        }
+        this.hash = 31 * prefix.hash + r.hashCode();
+        this.members = prefix.members.with(r, r.hashCode(), 0);
     }
 
     /**
      * Creates a new Path object with no regions in it.
      */
     public Path() {
-        this(new ArrayList<>());
+        this.prefix = null;
+        this.first = null;
+        this.last = null;
+        this.size = 0;
+        this.people = 0;
+        this.cost = 0;
+        this.hash = 1;
+        this.members = Members.EMPTY;
     }
 
     /**
      * Returns a copy of this Path's regions.
      */
     public List<Region> getRegions() {
-        return new ArrayList<>(regions);
+        Region[] regions = new Region[size];
+        Path node = this;
+        for (int i = size - 1; i >= 0; i--) {
+            regions[i] = node.last;
+            node = node.prefix;
+        }
+        return new ArrayList<>(Arrays.asList(regions));
     }
 
     /**
@@ -36,11 +75,7 @@ public class Path {
      * regions currently in the Path.
      */
     public Region getStart() {
-        if (regions.isEmpty()) {
-            return null;
-        }
-
-        return regions.get(0);
+        return first;
     }
 
     /**
@@ -48,11 +83,7 @@ public class Path {
      * regions currently in the Path.
      */
     public Region getEnd() {
-        if (regions.isEmpty()) {
-            return null;
-        }
-        
-        return regions.get(regions.size() - 1);
+        return last;
     }
 
     /**
@@ -62,12 +93,21 @@ public class Path {
      * @return a new Path with r added to it.
      */
     public Path extend(Region r) {
-        if (regions.contains(r)) {
+        if (contains(r)) {
             throw new IllegalArgumentException("Path already contains region " + r);
         }
-        List<Region> newRegions = new ArrayList<>(regions);
-        newRegions.add(r);
-        return new Path(newRegions);
+        return new Path(this, r);
+    }
+
+    /**
+     * Returns a new Path with r added to the end, without checking whether this Path
+     * already contains r. Only for callers that have already ruled that out, such as
+     * RegionGraph.toPath, which tracks the regions it has added by their ids.
+     * @param r Region to be added to the end of the new Path.
+     * @return a new Path with r added to it.
+     */
+    Path append(Region r) {
+        return new Path(this, r);
     }
 
     /**
@@ -76,44 +116,141 @@ public class Path {
      * @return a new Path with the last region removed from it.
      */
     public Path removeEnd() {
-        if (regions.isEmpty()) {
+        if (size == 0) {
             throw new IllegalStateException("Cannot remove from an empty path.");
         }
-        List<Region> newRegions = new ArrayList<>(regions);
-        newRegions.remove(regions.size() - 1);
-        return new Path(newRegions);
+        return prefix;
+    }
+
+    /**
+     * Checks whether this Path already contains a region equal to r. The regions of
+     * a Path are kept in a set that is shared with the Paths extended from it, so
+     * the check takes at most seven steps however long the Path is.
+     * @param r the region to look for
+     * @return true if the Path contains a region equal to r
+     */
+    private boolean contains(Region r) {
+        return members.contains(r, r.hashCode(), 0);
+    }
+
+    /**
+     * An unmodifiable set of regions that a Path shares with every Path extended from
+     * it. The set is a trie over the bits of the regions' hashes, five bits per level,
+     * and each level only stores the branches that are in use. Adding a region copies
+     * one node per level and leaves the old set as it was, and a lookup visits one node
+     * per level, so both take at most seven steps. Regions whose hashes are all the
+     * same end up together in a node below the last level, which is searched in order.
+     */
+    private static final class Members {
+        private static final Members EMPTY = new Members(0, new Object[0]);
+        private static final int BITS = 5;
+        private static final int LAST_SHIFT = 30;
+
+        private final int used;
+        private final Object[] slots;
+
+        private Members(int used, Object[] slots) {
+            this.used = used;
+            this.slots = slots;
+        }
+
+        /**
+         * Checks whether the set holds a region equal to r.
+         * @param r the region to look for
+         * @param hash the hash of r
+         * @param shift the number of hash bits used by the levels above this node
+         * @return true if the set holds a region equal to r
+         */
+        boolean contains(Region r, int hash, int shift) {
+            if (shift > LAST_SHIFT) {
+                for (Object slot : slots) {
+                    if (r.equals(slot)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((used & bit) == 0) {
+                return false;
+            }
+            Object slot = slots[Integer.bitCount(used & (bit - 1))];
+            if (slot instanceof Members) {
+                return ((Members)slot).contains(r, hash, shift + BITS);
+            }
+            return r.equals(slot);
+        }
+
+        /**
+         * Returns a set with the regions of this set and r, which must not be in it yet.
+         * @param r the region to add
+         * @param hash the hash of r
+         * @param shift the number of hash bits used by the levels above this node
+         * @return the new set
+         */
+        Members with(Region r, int hash, int shift) {
+            if (shift > LAST_SHIFT) {
+                Object[] grown = Arrays.copyOf(slots, slots.length + 1);
+                grown[slots.length] = r;
+                return new Members(used, grown);
+            }
+            int bit = 1 << ((hash >>> shift) & 31);
+            int index = Integer.bitCount(used & (bit - 1));
+            if ((used & bit) == 0) {
+                Object[] grown = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, grown, 0, index);
+                grown[index] = r;
+                System.arraycopy(slots, index, grown, index + 1, slots.length - index);
+                return new Members(used | bit, grown);
+            }
+            Object slot = slots[index];
+            Members child;
+            if (slot instanceof Members) {
+                child = ((Members)slot).with(r, hash, shift + BITS);
+            } else {
+                Region other = (Region)slot;
+                child = EMPTY.with(other, other.hashCode(), shift + BITS).with(r, hash, shift + BITS);
+            }
+            Object[] copy = slots.clone();
+            copy[index] = child;
+            return new Members(used, copy);
+        }
     }
 
     /**
      * Returns the number of regions in this Path.
      */
     public int size() {
-        return regions.size();
+        return size;
     }
 
     /**
-     * Calculates and returns the total population that can be helped
-     * by this Path.
+     * Returns the total population that can be helped by this Path.
+     * The total is kept up to date as the Path is extended.
      * @return the total population that can be helped by this Path.
      */
     public int totalPeople() {
-        int total = 0;
-        for (Region r : regions) {
-            total += r.getPopulation();
-        }
-        return total;
+        return people;
     }
 
     /**
-     * Calculates and returns the combined cost of this Path.
+     * Returns the combined cost of this Path, as of when each region was added.
+     * The total is kept up to date as the Path is extended, and each step's cost is
+     * read once, when the step is added. Changing a connection with addConnection
+     * afterwards does not change the cost of a Path that already takes that step,
+     * so regions should not be changed while Paths through them are still in use.
      * @return the combined cost of this Path.
      */
     public double totalCost() {
-        double total = 0;
-        for (int i = 0; i < regions.size() - 1; i++) {
-            total += regions.get(i).getCostTo(regions.get(i + 1));
+        if (Double.isNaN(cost)) {
+            List<Region> regions = getRegions();
+            double total = 0;
+            for (int i = 0; i < regions.size() - 1; i++) {
+                total += regions.get(i).getCostTo(regions.get(i + 1));
+            }
+            return total;
         }
-        return total;
+        return cost;
     }
 
     /**
@@ -122,7 +259,7 @@ public class Path {
      * @return the String representation of an Path object
      */
     public String toString() {
-        return regions.toString();
+        return getRegions().toString();
     }
 
     /**
@@ -140,7 +277,19 @@ public class Path {
             return false;
         }
         Path otherAlloc = (Path)other;
-        return this.regions.equals(otherAlloc.getRegions());
+        if (size != otherAlloc.size || hash != otherAlloc.hash) {
+            return false;
+        }
+        Path mine = this;
+        Path theirs = otherAlloc;
+        while (mine != theirs && mine.size > 0) {
+            if (!mine.last.equals(theirs.last)) {
+                return false;
+            }
+            mine = mine.prefix;
+            theirs = theirs.prefix;
+        }
+        return true;
     }
 
     /**
@@ -149,6 +298,6 @@ public class Path {
      */
     @Override
     public int hashCode() {
-        return regions.hashCode();
+        return hash;
     }
 }
@@ -0,0 +1,318 @@
+import java.nio.*;
+import java.nio.charset.*;
+import java.security.*;
+import java.util.*;
+
+/*
+ * This class sits in front of the solvers and remembers the best path for scenarios it has
+ *      already seen. A scenario is recognised by a fingerprint of its region list: the name and
+ *      population of every site and every connection between sites with its cost, in the order
+ *      the sites were given. Two lists built from different Region objects with the same
+ *      contents share a fingerprint, so they share a cached answer too.
+ *      The answer is kept as the positions of the path's sites in the list, so a hit hands back
+ *      a path made of the caller's own regions. When the cache is full, the scenario that was
+ *      asked for the longest time ago is dropped.
+ *      A scenario that changes through Region.addConnection gets a new fingerprint, so it can
+ *      never be answered from a stale entry, but the stale entry keeps its place until it is
+ *      evicted or dropped with invalidate().
+ *      The cache holds no Region objects. Every site is remembered by its name and population
+ *      only, in an index from each site to the scenarios that include it, so invalidate() only
+ *      visits the scenarios it drops.
+ */
+public final class PathCache {
+    private final int capacity;
+    private final SolverMode mode;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<Site, Set<String>> scenarios;
+    private long hits;
+    private long misses;
+
+    /*
+     * Creates a cache that solves scenarios it has not seen with the branch-and-bound solver.
+     * Parameters:
+     *      - capacity: the most scenarios the cache remembers at once
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the capacity is less than 1
+     */
+    public PathCache(int capacity) {
+        this(capacity, SolverMode.BRANCH_AND_BOUND);
+    }
+
+    /*
+     * Creates a cache that solves scenarios it has not seen with the given search engine.
+     * Parameters:
+     *      - capacity: the most scenarios the cache remembers at once
+     *      - mode: the search engine to use on a miss
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the capacity is less than 1 or the mode
+     *          is null
+     */
+    public PathCache(int capacity, SolverMode mode) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The cache has to hold at least one path!");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("The solver mode cannot be null!");
+        }
+        this.capacity = capacity;
+        this.mode = mode;
+        scenarios = new HashMap<>();
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= PathCache.this.capacity) {
+                    return false;
+                }
+                unindex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /*
+     * Finds the best path for the given sites, from the cache if the same scenario was solved
+     *      before and with the solver otherwise.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null
+     * Return:
+     *      - Path: The best possible helping path between regions, the same one
+     *          Client.findPath picks. Otherwise, null if the list of given region sites is empty.
+     */
+    public Path findPath(List<Region> sites) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (sites.isEmpty()) {
+            return null;
+        }
+        String key = fingerprint(sites);
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (cached != null) {
+            return cached.toPath(sites);
+        }
+        Path path = Client.findPath(sites, mode);
+        Entry solved = new Entry(sites, path);
+        synchronized (this) {
+            Entry replaced = entries.put(key, solved);
+            if (replaced != null) {
+                unindex(key, replaced);
+            }
+            for (Site site : solved.sites) {
+                scenarios.computeIfAbsent(site, s -> new HashSet<>()).add(key);
+            }
+        }
+        return path;
+    }
+
+    /*
+     * Drops every cached scenario that includes the given region. This should be called after
+     *      changing a region's connections, so the answers for its old connections stop taking
+     *      up room in the cache.
+     * Parameters:
+     *      - region: the region that changed
+     * Return:
+     *      - int: how many cached scenarios were dropped
+     */
+    public synchronized int invalidate(Region region) {
+        if (region == null) {
+            return 0;
+        }
+        Set<String> keys = scenarios.get(new Site(region.getName(), region.getPopulation()));
+        if (keys == null) {
+            return 0;
+        }
+        int dropped = 0;
+        for (String key : new ArrayList<>(keys)) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                unindex(key, entry);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /*
+     * Drops every cached scenario.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        scenarios.clear();
+    }
+
+    /*
+     * Returns how many scenarios the cache currently remembers.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /*
+     * Returns how many requests were answered from the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /*
+     * Returns how many requests had to be solved.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /*
+     * Computes the fingerprint of a scenario. Every site contributes its name and population
+     *      followed by its connections to other sites, ordered by the position of the site they
+     *      lead to. Connections that leave the list do not change the best path and are left
+     *      out, just like RegionGraph.compile leaves them out.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null
+     * Return:
+     *      - String: a SHA-256 digest of the scenario, written in hexadecimal
+     */
+    public static String fingerprint(List<Region> sites) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        int n = sites.size();
+        Map<Region, Integer> ids = new HashMap<>();
+        for (int i = n - 1; i >= 0; i--) {
+            ids.put(sites.get(i), i);
+        }
+        ByteBuffer scratch = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        update(digest, scratch.putInt(n));
+        for (Region site : sites) {
+            byte[] name = site.getName().getBytes(StandardCharsets.UTF_8);
+            update(digest, scratch.putInt(name.length));
+            digest.update(name);
+            update(digest, scratch.putInt(site.getPopulation()));
+            Map<Region, Double> connections = site.connections();
+            long[] keyed = new long[connections.size()];
+            double[] byKey = new double[connections.size()];
+            int count = 0;
+            for (Map.Entry<Region, Double> connection : connections.entrySet()) {
+                Integer id = ids.get(connection.getKey());
+                if (id != null) {
+                    keyed[count] = ((long) id << 32) | count;
+                    byKey[count] = connection.getValue();
+                    count++;
+                }
+            }
+            Arrays.sort(keyed, 0, count);
+            update(digest, scratch.putInt(count));
+            for (int k = 0; k < count; k++) {
+                scratch.putInt((int) (keyed[k] >>> 32));
+                update(digest, scratch.putLong(Double.doubleToLongBits(byKey[(int) keyed[k]])));
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /*
+     * Takes a scenario that is leaving the cache out of the index of every one of its sites.
+     */
+    private void unindex(String key, Entry entry) {
+        for (Site site : entry.sites) {
+            Set<String> keys = scenarios.get(site);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                scenarios.remove(site);
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, ByteBuffer scratch) {
+        scratch.flip();
+        digest.update(scratch);
+        scratch.clear();
+    }
+
+    /*
+     * A site as the cache remembers it: a region's name and population, which is all that
+     *      Region.equals looks at, without the region's connections.
+     */
+    private static final class Site {
+        private final String name;
+        private final int population;
+
+        Site(String name, int population) {
+            this.name = name;
+            this.population = population;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Site)) {
+                return false;
+            }
+            Site site = (Site)other;
+            return population == site.population && name.equals(site.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + population;
+        }
+    }
+
+    /*
+     * A cached answer: the positions of the best path's sites in the list it was solved for,
+     *      along with the distinct sites of that list so the entry can be taken out of the
+     *      index when it leaves the cache.
+     */
+    private static final class Entry {
+        private final Site[] sites;
+        private final int[] order;
+
+        Entry(List<Region> sites, Path path) {
+            Map<Region, Integer> ids = new HashMap<>();
+            for (int i = sites.size() - 1; i >= 0; i--) {
+                ids.put(sites.get(i), i);
+            }
+            this.sites = new Site[ids.size()];
+            int count = 0;
+            for (Region site : ids.keySet()) {
+                this.sites[count++] = new Site(site.getName(), site.getPopulation());
+            }
+            List<Region> regions = path.getRegions();
+            order = new int[regions.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = ids.get(regions.get(i));
+            }
+        }
+
+        /*
+         * Rebuilds the cached path out of the regions of the given list, which has the same
+         *      fingerprint as the list the entry was solved for.
+         */
+        Path toPath(List<Region> sites) {
+            Path path = new Path();
+            for (int site : order) {
+                path = path.extend(sites.get(site));
+            }
+            return path;
+        }
+    }
+}
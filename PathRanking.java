@@ -0,0 +1,75 @@
+/*
+ * This class holds the ordering that every solver uses to decide which of two candidate
+ *      paths is the better relief plan. It mirrors Client.bestPath: the path that helps the
+ *      most people wins, then the path with the lower total cost, and if both are tied then
+ *      whichever path the exhaustive search would have listed first. The start region by
+ *      itself is only a candidate when it cannot reach any other site.
+ */
+final class PathRanking {
+
+    private PathRanking() {
+    }
+
+    /*
+     * Compares two candidate paths on the amount of people helped and then on cost.
+     * Parameters:
+     *      - peopleA: the people helped by the first path
+     *      - costA: the total cost of the first path
+     *      - peopleB: the people helped by the second path
+     *      - costB: the total cost of the second path
+     * Return:
+     *      - int: negative if the first path ranks ahead, positive if the second path ranks
+     *          ahead, and 0 if they are tied on both people and cost
+     */
+    static int compare(int peopleA, double costA, int peopleB, double costB) {
+        if (peopleA != peopleB) {
+            return peopleA > peopleB ? -1 : 1;
+        }
+        if (costA != costB) {
+            return costA < costB ? -1 : 1;
+        }
+        return 0;
+    }
+
+    /*
+     * Compares two paths, given as sequences of site indexes, by the order the exhaustive
+     *      search lists them in. That search lists a path only after every one of its
+     *      extensions, and lists sibling branches in the order the sites were given.
+     * Parameters:
+     *      - a: the site indexes of the first path
+     *      - lenA: how many entries of a are part of the first path
+     *      - b: the site indexes of the second path
+     *      - lenB: how many entries of b are part of the second path
+     * Return:
+     *      - int: negative if the first path is listed first, positive if the second path is
+     *          listed first, and 0 if they are the same path
+     */
+    static int comparePostOrder(int[] a, int lenA, int[] b, int lenB) {
+        int shared = Math.min(lenA, lenB);
+        for (int i = 0; i < shared; i++) {
+            if (a[i] != b[i]) {
+                return a[i] < b[i] ? -1 : 1;
+            }
+        }
+        return lenB - lenA;
+    }
+
+    /*
+     * Checks whether the start region by itself counts as a candidate path. Client.findPath
+     *      only falls back to it when the start cannot reach any other site, so as soon as the
+     *      start has a neighbor, the best path goes somewhere even if nobody lives there.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - start: the id of the region every path starts from
+     * Return:
+     *      - boolean: true if the start has no connection to any other region
+     */
+    static boolean startAloneCounts(RegionGraph graph, int start) {
+        for (int edge = graph.firstEdge(start); edge < graph.firstEdge(start + 1); edge++) {
+            if (graph.target(edge) != start) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
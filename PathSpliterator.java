@@ -0,0 +1,141 @@
+import java.util.*;
+import java.util.function.*;
+
+/*
+ * This class lazily walks every simple path that starts from the region with id 0, using an
+ *      explicit stack instead of recursion. A path is handed out as soon as it is reached, so
+ *      each path comes right before all of its extensions and sibling branches follow the
+ *      order of the sites. Only the paths on the stack are kept, so memory use depends on the
+ *      depth of the search and not on the number of paths.
+ *      Splitting hands the branch currently being walked to a new spliterator and keeps the
+ *      paths that come after it, which keeps the encounter order intact for parallel streams.
+ */
+final class PathSpliterator implements Spliterator<Path> {
+    private final RegionGraph graph;
+    private final boolean[] visited;
+    private final int[] node;
+    private final Path[] paths;
+    private final int[] cursor;
+    private final int[] limit;
+    private int rootDepth;
+    private int depth;
+    private boolean rootPending;
+
+    /*
+     * Creates a spliterator over every simple path in the graph that starts at id 0.
+     * Parameters:
+     *      - graph: the compiled regions to walk
+     */
+    PathSpliterator(RegionGraph graph) {
+        this(graph, graph.size());
+        node[0] = 0;
+        visited[0] = true;
+        paths[0] = new Path().extend(graph.region(0));
+        cursor[0] = graph.firstEdge(0);
+        limit[0] = graph.firstEdge(1);
+        rootPending = true;
+    }
+
+    private PathSpliterator(RegionGraph graph, int n) {
+        this.graph = graph;
+        visited = new boolean[n];
+        node = new int[n];
+        paths = new Path[n];
+        cursor = new int[n];
+        limit = new int[n];
+    }
+
+    /*
+     * Hands the next path to the given action.
+     * Parameters:
+     *      - action: what to do with the next path
+     * Return:
+     *      - boolean: false if every path has already been handed out
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super Path> action) {
+        if (rootPending) {
+            rootPending = false;
+            action.accept(paths[rootDepth]);
+            return true;
+        }
+        while (depth >= rootDepth) {
+            if (cursor[depth] < limit[depth]) {
+                int next = graph.target(cursor[depth]++);
+                if (visited[next]) {
+                    continue;
+                }
+                Path extended = paths[depth].extend(graph.region(next));
+                depth++;
+                node[depth] = next;
+                visited[next] = true;
+                paths[depth] = extended;
+                cursor[depth] = graph.firstEdge(next);
+                limit[depth] = graph.firstEdge(next + 1);
+                action.accept(extended);
+                return true;
+            }
+            if (depth == rootDepth) {
+                depth = rootDepth - 1;
+            } else {
+                visited[node[depth]] = false;
+                paths[depth] = null;
+                depth--;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Splits off the paths this spliterator would hand out first. The returned spliterator
+     *      takes over the branch currently being walked along with the first half of the
+     *      remaining siblings at the shallowest level that has at least two left. This
+     *      spliterator keeps the second half of those siblings and everything after them.
+     * Return:
+     *      - Spliterator<Path>: the paths that come first, or null if there is too little left
+     *          to split
+     */
+    @Override
+    public Spliterator<Path> trySplit() {
+        int level = rootDepth;
+        while (level <= depth && limit[level] - cursor[level] < 2) {
+            level++;
+        }
+        if (level > depth) {
+            return null;
+        }
+        int middle = cursor[level] + (limit[level] - cursor[level]) / 2;
+        PathSpliterator first = new PathSpliterator(graph, visited.length);
+        System.arraycopy(visited, 0, first.visited, 0, visited.length);
+        System.arraycopy(node, 0, first.node, 0, depth + 1);
+        System.arraycopy(paths, 0, first.paths, 0, depth + 1);
+        System.arraycopy(cursor, 0, first.cursor, 0, depth + 1);
+        System.arraycopy(limit, 0, first.limit, 0, depth + 1);
+        first.rootDepth = rootDepth;
+        first.depth = depth;
+        first.rootPending = rootPending;
+        for (int i = rootDepth; i < level; i++) {
+            first.limit[i] = first.cursor[i];
+        }
+        first.limit[level] = middle;
+
+        for (int i = level + 1; i <= depth; i++) {
+            visited[node[i]] = false;
+            paths[i] = null;
+        }
+        depth = level;
+        rootPending = false;
+        cursor[level] = middle;
+        return first;
+    }
+
+    @Override
+    public long estimateSize() {
+        return depth < rootDepth ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+    }
+}
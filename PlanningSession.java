@@ -0,0 +1,172 @@
+import java.util.*;
+
+/*
+ * This class keeps a relief plan up to date while the situation on the ground changes. It
+ *      takes its own snapshot of the regions, accepts roads opening, closing or changing cost
+ *      and population estimates changing, and hands back the best path for the current state
+ *      of things. The table behind the plan is kept between changes and only the parts a
+ *      change can affect are worked out again, so a re-plan after a few changes is much
+ *      faster than solving from scratch.
+ *      Changes go into the session's snapshot only; the regions it was created from are never
+ *      modified. The paths it hands back are made of regions that match the snapshot.
+ *      Regions are found by their name and by the population the snapshot gives them, so
+ *      after a population changes the region is referred to by its new population. If two
+ *      regions have the same name and population, the one that comes first in the list is
+ *      the one that gets found.
+ */
+public final class PlanningSession {
+    private static final int MAX_PENDING = 64;
+
+    private final Map<String, int[]> named;
+    private RegionGraph graph;
+    private SubsetDpSolver solver;
+    private int[] pendingFrom;
+    private int[] pendingTo;
+    private int pendingCount;
+    private boolean stale;
+    private Path best;
+
+    /*
+     * Starts a planning session over the given sites, with the first site as the start.
+     * Parameters:
+     *      - sites: the list of all the regions that need help
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null or empty,
+     *          or has too many sites to plan for
+     */
+    public PlanningSession(List<Region> sites) {
+        if (sites == null || sites.isEmpty()) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        graph = RegionGraph.compile(sites);
+        named = new HashMap<>();
+        for (int i = 0; i < sites.size(); i++) {
+            String name = sites.get(i).getName();
+            int[] ids = named.get(name);
+            ids = ids == null ? new int[1] : Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = i;
+            named.put(name, ids);
+        }
+        solver = new SubsetDpSolver(graph, null);
+        solver.fill();
+        pendingFrom = new int[MAX_PENDING];
+        pendingTo = new int[MAX_PENDING];
+        stale = true;
+    }
+
+    /*
+     * Opens a connection between two regions, or changes its cost if it is already open.
+     * Parameters:
+     *      - from: the region the connection leaves
+     *      - to: the region the connection leads to
+     *      - cost: the cost to travel from from to to
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if either region is not part of the session
+     */
+    public void addConnection(Region from, Region to, double cost) {
+        int start = idOf(from);
+        int end = idOf(to);
+        graph = graph.withConnection(start, end, cost);
+        changed(start, end);
+    }
+
+    /*
+     * Closes the connection between two regions. Nothing happens if there was none.
+     * Parameters:
+     *      - from: the region the connection leaves
+     *      - to: the region the connection leads to
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if either region is not part of the session
+     */
+    public void removeConnection(Region from, Region to) {
+        int start = idOf(from);
+        int end = idOf(to);
+        RegionGraph updated = graph.withoutConnection(start, end);
+        if (updated != graph) {
+            graph = updated;
+            changed(start, end);
+        }
+    }
+
+    /*
+     * Updates how many people live in a region. Afterwards the region is referred to by its
+     *      new population, since a region with the old population is no longer part of it.
+     * Parameters:
+     *      - site: the region to update
+     *      - population: the new estimate of the people in the region
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the region is not part of the session
+     */
+    public void setPopulation(Region site, int population) {
+        graph = graph.withPopulation(idOf(site), population);
+        stale = true;
+    }
+
+    /*
+     * Returns the best path for the current state of the session, ranked the same way
+     *      Client.findPath ranks paths.
+     * Return:
+     *      - Path: The best possible helping path between regions
+     */
+    public Path findPath() {
+        if (pendingCount > 0) {
+            solver.refill(graph, pendingFrom, pendingTo, pendingCount);
+            pendingCount = 0;
+            stale = true;
+        }
+        if (stale) {
+            solver.repopulate(graph);
+            int[] order = solver.bestOrder();
+            best = graph.toPath(order, order.length);
+            stale = false;
+        }
+        return best;
+    }
+
+    /*
+     * Returns the current snapshot of the regions, which can be handed to any of the other
+     *      solvers.
+     */
+    public RegionGraph getGraph() {
+        return graph;
+    }
+
+    /*
+     * Records that the connection between two sites changed, so the table states it can
+     *      affect get worked out again on the next findPath(). A
+     *      connection into the start site is never used by a path, so it needs no work. After
+     *      too many changes the table is simply filled again from scratch.
+     */
+    private void changed(int from, int to) {
+        stale = true;
+        if (to == 0 || from == to) {
+            return;
+        }
+        if (pendingCount == MAX_PENDING) {
+            solver = new SubsetDpSolver(graph, null);
+            solver.fill();
+            pendingCount = 0;
+            return;
+        }
+        pendingFrom[pendingCount] = from;
+        pendingTo[pendingCount] = to;
+        pendingCount++;
+    }
+
+    /*
+     * Looks up the id of a region in the session: the first region with the same name that
+     *      the current snapshot gives the same population.
+     */
+    private int idOf(Region site) {
+        int[] ids = site == null ? null : named.get(site.getName());
+        if (ids != null) {
+            for (int id : ids) {
+                if (graph.population(id) == site.getPopulation()) {
+                    return id;
+                }
+            }
+        }
+        throw new IllegalArgumentException("The region is not part of this session: "
+                + (site == null ? null : site.getName()));
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * The reasons a search can give for skipping a branch, as counted by SearchStats.
+ */
+public enum PruneReason {
+    /*
+     * Even helping everyone still reachable, the branch helps fewer people than the best path.
+     */
+    POPULATION_BOUND,
+
+    /*
+     * The branch can at best tie the best path on people and already costs at least as much.
+     */
+    COST_BOUND,
+
+    /*
+     * The best path found by another worker of the parallel search already beats the branch.
+     */
+    SHARED_BOUND,
+
+    /*
+     * The branch already costs more than the budget allows.
+     */
+    OVER_BUDGET
+}
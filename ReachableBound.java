@@ -0,0 +1,48 @@
+/*
+ * This class works out the optimistic bound that the branch-and-bound searches prune with: the
+ *      people in every unvisited region that can still be reached from the end of a path
+ *      without passing through a visited one. No extension of the path can help anyone outside
+ *      of that set. The scratch arrays are reused between calls so the search loop does not
+ *      allocate.
+ */
+final class ReachableBound {
+    private final RegionGraph graph;
+    private final int[] queue;
+    private final int[] seen;
+    private int stamp;
+
+    ReachableBound(RegionGraph graph) {
+        this.graph = graph;
+        queue = new int[graph.size()];
+        seen = new int[graph.size()];
+    }
+
+    /*
+     * Adds up the people in every unvisited region reachable from the given region.
+     * Parameters:
+     *      - visited: which regions are already part of the path
+     *      - from: the region to search from, which is never counted itself
+     * Return:
+     *      - int: the people in the regions reachable from the given region
+     */
+    int people(boolean[] visited, int from) {
+        stamp++;
+        seen[from] = stamp;
+        queue[0] = from;
+        int head = 0;
+        int tail = 1;
+        int total = 0;
+        while (head < tail) {
+            int site = queue[head++];
+            for (int edge = graph.firstEdge(site); edge < graph.firstEdge(site + 1); edge++) {
+                int next = graph.target(edge);
+                if (!visited[next] && seen[next] != stamp) {
+                    seen[next] = stamp;
+                    queue[tail++] = next;
+                    total += graph.population(next);
+                }
+            }
+        }
+        return total;
+    }
+}
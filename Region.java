@@ -6,9 +6,10 @@ import java.util.*;
  * to others, and whether another region is reachable from this region.
  */
 public class Region {
-    private String name;
-    private int population;
+    private final String name;
+    private final int population;
     private Map<Region, Double> costs;
+    private int hash;
 
     /**
      * Creates a new Region object with the given name, population, and costs.
@@ -33,6 +34,8 @@ public class Region {
 
     /**
      * Adds a new connection from this region to other with the specified cost.
+     * Paths that already travel from this region to other keep the cost they
+     * were built with.
      * @param other the region to connect to
      * @param cost the cost to travel from this region to other
      */
@@ -59,11 +62,12 @@ public class Region {
      * @return the cost of travelling from this region to other 
      */
     public double getCostTo(Region other) {
-        if (!costs.containsKey(other)) {
+        Double cost = costs.get(other);
+        if (cost == null) {
             throw new IllegalArgumentException("Cannot travel from " + this.name + " to " + other.name);
         }
 
-        return costs.get(other);
+        return cost;
     }
 
     /**
@@ -75,19 +79,33 @@ public class Region {
         return costs.containsKey(other);
     }
 
+    /**
+     * Returns a read-only view of the connections out of this region and their costs
+     * @return the regions reachable from this region mapped to the cost of reaching them
+     */
+    Map<Region, Double> connections() {
+        return Collections.unmodifiableMap(costs);
+    }
+
 
     /**
      * Returns a String representation of a Region object in the format:
      * "<name>: pop. <population> - [<connection> ($<cost>), ...]"
+     * A region with no connections ends in "[]".
      * @return the String representation of a Region object
      */
     public String toString() {
-        String result = name + ": pop. " + population + " - [";
-        for (Region connection : costs.keySet()) {
-            result += connection.name + " (" + costs.get(connection) + "), ";
+        StringBuilder result = new StringBuilder();
+        result.append(name).append(": pop. ").append(population).append(" - [");
+        boolean first = true;
+        for (Map.Entry<Region, Double> connection : costs.entrySet()) {
+            if (!first) {
+                result.append(", ");
+            }
+            first = false;
+            result.append(connection.getKey().name).append(" (").append(connection.getValue()).append(')');
         }
-        result = result.substring(0, result.length() - 2) + "]";
-        return result;
+        return result.append(']').toString();
     }
 
     /**
@@ -106,19 +124,27 @@ public class Region {
             return false;
         }
         Region otherLoc = (Region)other;
+        if (this.hash != 0 && otherLoc.hash != 0 && this.hash != otherLoc.hash) {
+            return false;
+        }
 
         return this.name.equals(otherLoc.name) &&
                 this.population == otherLoc.population; 
     }
 
     /**
-     * Returns the hash code value for this Region
+     * Returns the hash code value for this Region. The name and population never change,
+     * so the hash is only worked out once.
      * @return the hash code value for this Region
      */
     @Override
     public int hashCode() {
-        int result = name.hashCode();
-        result = 31 * result + Integer.hashCode(population);
+        int result = hash;
+        if (result == 0) {
+            result = name.hashCode();
+            result = 31 * result + Integer.hashCode(population);
+            hash = result;
+        }
         return result;
     }
 }
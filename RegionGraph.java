@@ -0,0 +1,370 @@
+import java.util.*;
+
+/*
+ * This class is an immutable snapshot of a list of regions and the connections between them,
+ *      compiled into primitive arrays so that solvers never have to hash a region or unbox a
+ *      cost while they search. Every region gets the index it had in the site list as its id.
+ *      The connections leaving a region are stored next to each other (compressed sparse rows)
+ *      and sorted by the id of the region they lead to, so walking them visits neighbors in
+ *      the same order the sites were given in.
+ *      A graph can also be edited, which leaves it untouched and hands back a new snapshot
+ *      with the change applied. Regions of an edited snapshot are rebuilt from its arrays the
+ *      first time they are asked for.
+ */
+public final class RegionGraph {
+    private static final int DENSE_LIMIT = 256;
+
+    private volatile List<Region> regions;
+    private final String[] names;
+    private final int[] population;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] costs;
+    private final double[] matrix;
+
+    private RegionGraph(List<Region> regions, String[] names, int[] population, int[] offsets,
+                        int[] targets, double[] costs) {
+        this.regions = regions;
+        this.names = names;
+        this.population = population;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.costs = costs;
+        int n = population.length;
+        if (n <= DENSE_LIMIT) {
+            matrix = new double[n * n];
+            Arrays.fill(matrix, Double.NaN);
+            for (int from = 0; from < n; from++) {
+                for (int edge = offsets[from]; edge < offsets[from + 1]; edge++) {
+                    matrix[from * n + targets[edge]] = costs[edge];
+                }
+            }
+        } else {
+            matrix = null;
+        }
+    }
+
+    /*
+     * Compiles the given regions into a graph snapshot. Connections that lead to regions
+     *      outside of the list are left out, and later changes to the regions do not show up
+     *      in the snapshot.
+     * Parameters:
+     *      - sites: the regions to compile, where each region's position becomes its id
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null
+     * Return:
+     *      - RegionGraph: the compiled snapshot
+     */
+    public static RegionGraph compile(List<Region> sites) {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        int n = sites.size();
+        Map<Region, Integer> ids = new HashMap<>();
+        for (int i = n - 1; i >= 0; i--) {
+            ids.put(sites.get(i), i);
+        }
+        String[] names = new String[n];
+        int[] population = new int[n];
+        int[] offsets = new int[n + 1];
+        List<int[]> rows = new ArrayList<>(n);
+        List<double[]> rowCosts = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Region site = sites.get(i);
+            names[i] = site.getName();
+            population[i] = site.getPopulation();
+            Map<Region, Double> connections = site.connections();
+            long[] keyed = new long[connections.size()];
+            double[] byKey = new double[connections.size()];
+            int count = 0;
+            for (Map.Entry<Region, Double> connection : connections.entrySet()) {
+                Integer id = ids.get(connection.getKey());
+                if (id != null) {
+                    keyed[count] = ((long) id << 32) | count;
+                    byKey[count] = connection.getValue();
+                    count++;
+                }
+            }
+            Arrays.sort(keyed, 0, count);
+            int[] row = new int[count];
+            double[] rowCost = new double[count];
+            for (int k = 0; k < count; k++) {
+                row[k] = (int) (keyed[k] >>> 32);
+                rowCost[k] = byKey[(int) keyed[k]];
+            }
+            rows.add(row);
+            rowCosts.add(rowCost);
+            offsets[i + 1] = offsets[i] + count;
+        }
+        int[] targets = new int[offsets[n]];
+        double[] costs = new double[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(rows.get(i), 0, targets, offsets[i], rows.get(i).length);
+            System.arraycopy(rowCosts.get(i), 0, costs, offsets[i], rowCosts.get(i).length);
+        }
+        return new RegionGraph(new ArrayList<>(sites), names, population, offsets, targets, costs);
+    }
+
+    /*
+     * Returns a graph with the same regions and connections that no longer refers to the
+     *      regions it was compiled from. Its regions are rebuilt from its arrays the first time
+     *      they are needed, so paths found on it never read the caller's regions, even from
+     *      another thread while the caller keeps changing them.
+     */
+    RegionGraph detached() {
+        if (regions == null) {
+            return this;
+        }
+        return new RegionGraph(null, names, population, offsets, targets, costs);
+    }
+
+    /*
+     * Builds a graph straight from its arrays, for example ones read back from a file. The
+     *      arrays are used as they are, so the caller must not change them afterwards.
+     * Parameters:
+     *      - names: the name of every region
+     *      - population: the population of every region
+     *      - offsets: where the connections of every region start, with one extra entry for
+     *          the end of the last region's connections
+     *      - targets: the id of the region every connection leads to, sorted within each region
+     *      - costs: the cost of every connection
+     * Return:
+     *      - RegionGraph: the graph, whose regions are built the first time they are needed
+     */
+    static RegionGraph of(String[] names, int[] population, int[] offsets, int[] targets,
+                          double[] costs) {
+        return new RegionGraph(null, names, population, offsets, targets, costs);
+    }
+
+    /*
+     * Returns a copy of this graph where the connection between two regions costs the given
+     *      amount, adding the connection if it did not exist yet.
+     * Parameters:
+     *      - from: the id of the region the connection leaves
+     *      - to: the id of the region the connection leads to
+     *      - cost: the cost of the connection
+     * Return:
+     *      - RegionGraph: the edited snapshot
+     */
+    RegionGraph withConnection(int from, int to, double cost) {
+        int edge = Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to);
+        if (edge >= 0) {
+            double[] changed = costs.clone();
+            changed[edge] = cost;
+            return new RegionGraph(null, names, population, offsets, targets, changed);
+        }
+        int at = -edge - 1;
+        int[] nextOffsets = offsets.clone();
+        for (int i = from + 1; i < nextOffsets.length; i++) {
+            nextOffsets[i]++;
+        }
+        int[] nextTargets = new int[targets.length + 1];
+        double[] nextCosts = new double[costs.length + 1];
+        System.arraycopy(targets, 0, nextTargets, 0, at);
+        System.arraycopy(costs, 0, nextCosts, 0, at);
+        nextTargets[at] = to;
+        nextCosts[at] = cost;
+        System.arraycopy(targets, at, nextTargets, at + 1, targets.length - at);
+        System.arraycopy(costs, at, nextCosts, at + 1, costs.length - at);
+        return new RegionGraph(null, names, population, nextOffsets, nextTargets, nextCosts);
+    }
+
+    /*
+     * Returns a copy of this graph without the connection between two regions, or this graph
+     *      itself if there was no such connection.
+     * Parameters:
+     *      - from: the id of the region the connection leaves
+     *      - to: the id of the region the connection leads to
+     * Return:
+     *      - RegionGraph: the edited snapshot
+     */
+    RegionGraph withoutConnection(int from, int to) {
+        int edge = Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to);
+        if (edge < 0) {
+            return this;
+        }
+        int[] nextOffsets = offsets.clone();
+        for (int i = from + 1; i < nextOffsets.length; i++) {
+            nextOffsets[i]--;
+        }
+        int[] nextTargets = new int[targets.length - 1];
+        double[] nextCosts = new double[costs.length - 1];
+        System.arraycopy(targets, 0, nextTargets, 0, edge);
+        System.arraycopy(costs, 0, nextCosts, 0, edge);
+        System.arraycopy(targets, edge + 1, nextTargets, edge, targets.length - edge - 1);
+        System.arraycopy(costs, edge + 1, nextCosts, edge, costs.length - edge - 1);
+        return new RegionGraph(null, names, population, nextOffsets, nextTargets, nextCosts);
+    }
+
+    /*
+     * Returns a copy of this graph where the given region has a new population.
+     * Parameters:
+     *      - site: the id of the region to update
+     *      - people: the new population of the region
+     * Return:
+     *      - RegionGraph: the edited snapshot
+     */
+    RegionGraph withPopulation(int site, int people) {
+        int[] nextPopulation = population.clone();
+        nextPopulation[site] = people;
+        return new RegionGraph(null, names, nextPopulation, offsets, targets, costs);
+    }
+
+    /*
+     * Returns the number of regions in the graph.
+     */
+    public int size() {
+        return population.length;
+    }
+
+    /*
+     * Returns the number of connections in the graph.
+     */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /*
+     * Returns the name of the region with the given id.
+     */
+    public String name(int site) {
+        return names[site];
+    }
+
+    /*
+     * Returns the population of the region with the given id.
+     */
+    public int population(int site) {
+        return population[site];
+    }
+
+    /*
+     * Returns the index of the first connection leaving the given region. The connections of
+     *      a region run from firstEdge(site) up to, but not including, firstEdge(site + 1).
+     */
+    public int firstEdge(int site) {
+        return offsets[site];
+    }
+
+    /*
+     * Returns the id of the region that the given connection leads to.
+     */
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /*
+     * Returns the cost of the given connection.
+     */
+    public double cost(int edge) {
+        return costs[edge];
+    }
+
+    /*
+     * Checks whether the region with id to can be reached from the region with id from.
+     */
+    public boolean canReach(int from, int to) {
+        return !Double.isNaN(lookup(from, to));
+    }
+
+    /*
+     * Returns the cost of travelling from one region to another.
+     * Parameters:
+     *      - from: the id of the region to travel from
+     *      - to: the id of the region to travel to
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if to cannot be reached from from
+     * Return:
+     *      - double: the cost of the connection
+     */
+    public double costBetween(int from, int to) {
+        double cost = lookup(from, to);
+        if (Double.isNaN(cost)) {
+            throw new IllegalArgumentException("Cannot travel from " + from + " to " + to);
+        }
+        return cost;
+    }
+
+    /*
+     * Looks up the cost of the connection between two regions, using the dense cost matrix on
+     *      small graphs and a binary search of the sorted connections otherwise.
+     * Return:
+     *      - double: the cost of the connection, or NaN if there is none
+     */
+    double lookup(int from, int to) {
+        if (matrix != null) {
+            return matrix[from * population.length + to];
+        }
+        int edge = Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to);
+        return edge < 0 ? Double.NaN : costs[edge];
+    }
+
+    /*
+     * Returns the region that the given id stands for.
+     */
+    public Region region(int site) {
+        return regions().get(site);
+    }
+
+    /*
+     * Turns a sequence of region ids back into a Path of regions. Repeated regions are caught
+     *      by their ids, so building the Path takes constant time per region however long it is.
+     * Parameters:
+     *      - order: the region ids of the path, in travel order
+     *      - length: how many entries of order are part of the path
+     * Exceptions:
+     *      - IllegalArgumentException: if the same id appears twice in the path
+     * Return:
+     *      - Path: the path made of the matching regions
+     */
+    public Path toPath(int[] order, int length) {
+        List<Region> sites = regions();
+        boolean[] seen = new boolean[size()];
+        Path path = new Path();
+        for (int i = 0; i < length; i++) {
+            Region site = sites.get(order[i]);
+            if (seen[order[i]]) {
+                throw new IllegalArgumentException("Path already contains region " + site);
+            }
+            seen[order[i]] = true;
+            path = path.append(site);
+        }
+        return path;
+    }
+
+    /*
+     * Returns the regions of this graph, building them from the snapshot's arrays the first
+     *      time they are needed if the graph was made by editing another one.
+     */
+    List<Region> regions() {
+        List<Region> result = regions;
+        if (result == null) {
+            synchronized (this) {
+                result = regions;
+                if (result == null) {
+                    result = materialize();
+                    regions = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Builds a fresh set of regions that match this snapshot, with one connection for every
+     *      connection in the graph.
+     */
+    private List<Region> materialize() {
+        int n = population.length;
+        List<Region> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(new Region(names[i], population[i]));
+        }
+        for (int from = 0; from < n; from++) {
+            for (int edge = offsets[from]; edge < offsets[from + 1]; edge++) {
+                result.get(from).addConnection(result.get(targets[edge]), costs[edge]);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
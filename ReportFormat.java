@@ -0,0 +1,9 @@
+/*
+ * The formats a ReportWriter can write.
+ *      - CSV: one row per record, with a header row before each run of records of one kind
+ *      - JSON_LINES: one JSON object per line
+ */
+public enum ReportFormat {
+    CSV,
+    JSON_LINES
+}
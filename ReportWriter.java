@@ -0,0 +1,418 @@
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.stream.*;
+
+/*
+ * This class writes scenarios and the paths found for them as CSV or JSON lines, for audits
+ *      and for loading into other tools. Every record is appended straight into one buffer
+ *      that is reused for the whole report and handed to the underlying Writer in large
+ *      chunks, so no String is built per region or per connection and very large scenarios
+ *      stream out in one pass.
+ *      Records:
+ *          - scenario, CSV: "region,population,connection,cost", one row per connection; a
+ *              region with no connections gets one row with the last two fields empty
+ *          - scenario, JSON: {"region":..,"population":..,"connections":[{"to":..,"cost":..}]}
+ *          - path, CSV: "people,cost,regions", one row per path with the region names joined
+ *              by ';', where a ';' or '\' inside a name is written with a '\' in front
+ *          - path, JSON: {"people":..,"cost":..,"regions":[..]}
+ *      In CSV, a header row is written before the first record and again whenever the kind
+ *      of record changes. Names are quoted or escaped as each format needs, and a cost that
+ *      is not a finite number is written as an empty field in CSV and as null in JSON.
+ */
+public final class ReportWriter implements Closeable, Flushable {
+    private static final int FLUSH_AT = 1 << 15;
+    private static final int NONE = 0;
+    private static final int REGIONS = 1;
+    private static final int PATHS = 2;
+
+    private final Writer out;
+    private final ReportFormat format;
+    private final StringBuilder buffer;
+    private char[] chunk;
+    private int lastKind;
+
+    /*
+     * Creates a report writer on top of a Writer. Closing the report writer closes it.
+     * Parameters:
+     *      - out: where to write the report
+     *      - format: the format of the report
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the writer or the format is null
+     */
+    public ReportWriter(Writer out, ReportFormat format) {
+        if (out == null) {
+            throw new IllegalArgumentException("The writer cannot be null!");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("The report format cannot be null!");
+        }
+        this.out = out;
+        this.format = format;
+        this.buffer = new StringBuilder(FLUSH_AT + 1024);
+        this.chunk = new char[FLUSH_AT + 1024];
+        this.lastKind = NONE;
+    }
+
+    /*
+     * Creates a report writer that writes UTF-8 to an OutputStream. Closing the report writer
+     *      closes the stream.
+     * Parameters:
+     *      - out: where to write the report
+     *      - format: the format of the report
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the stream or the format is null
+     */
+    public ReportWriter(OutputStream out, ReportFormat format) {
+        this(toWriter(out), format);
+    }
+
+    /*
+     * Writes every region of a scenario along with its connections. Connections to regions
+     *      outside of the list are written too, by the name of the region they lead to. The
+     *      list is checked before anything is written.
+     * Parameters:
+     *      - sites: the regions to write
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list or any region in it is null
+     *      - IOException(): gets thrown if the report cannot be written
+     */
+    public void writeScenario(List<Region> sites) throws IOException {
+        if (sites == null) {
+            throw new IllegalArgumentException("The sites list cannot be null!");
+        }
+        for (Region site : sites) {
+            if (site == null) {
+                throw new IllegalArgumentException("The region cannot be null!");
+            }
+        }
+        startKind(REGIONS);
+        for (Region site : sites) {
+            Map<Region, Double> connections = site.connections();
+            if (format == ReportFormat.CSV) {
+                if (connections.isEmpty()) {
+                    csvRegionRow(site.getName(), site.getPopulation(), null, Double.NaN);
+                }
+                for (Map.Entry<Region, Double> connection : connections.entrySet()) {
+                    csvRegionRow(site.getName(), site.getPopulation(),
+                            connection.getKey().getName(), connection.getValue());
+                }
+            } else {
+                jsonRegionStart(site.getName(), site.getPopulation());
+                boolean first = true;
+                for (Map.Entry<Region, Double> connection : connections.entrySet()) {
+                    jsonConnection(first, connection.getKey().getName(), connection.getValue());
+                    first = false;
+                }
+                buffer.append("]}\n");
+            }
+            drainIfFull();
+        }
+    }
+
+    /*
+     * Writes every region of a compiled graph along with its connections, straight from the
+     *      graph's arrays without building any Region objects.
+     * Parameters:
+     *      - graph: the graph to write
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the graph is null
+     *      - IOException(): gets thrown if the report cannot be written
+     */
+    public void writeScenario(RegionGraph graph) throws IOException {
+        if (graph == null) {
+            throw new IllegalArgumentException("The region graph cannot be null!");
+        }
+        startKind(REGIONS);
+        for (int site = 0; site < graph.size(); site++) {
+            int from = graph.firstEdge(site);
+            int to = graph.firstEdge(site + 1);
+            if (format == ReportFormat.CSV) {
+                if (from == to) {
+                    csvRegionRow(graph.name(site), graph.population(site), null, Double.NaN);
+                }
+                for (int edge = from; edge < to; edge++) {
+                    csvRegionRow(graph.name(site), graph.population(site),
+                            graph.name(graph.target(edge)), graph.cost(edge));
+                }
+            } else {
+                jsonRegionStart(graph.name(site), graph.population(site));
+                for (int edge = from; edge < to; edge++) {
+                    jsonConnection(edge == from, graph.name(graph.target(edge)), graph.cost(edge));
+                }
+                buffer.append("]}\n");
+            }
+            drainIfFull();
+        }
+    }
+
+    /*
+     * Writes one path with the people it helps and what it costs. Everything about the path is
+     *      worked out before any of it is written, so a path that cannot be written leaves no
+     *      trace in the report.
+     * Parameters:
+     *      - path: the path to write
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the path is null or takes a connection
+     *          that does not exist
+     *      - IOException(): gets thrown if the report cannot be written
+     */
+    public void writePath(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("The path cannot be null!");
+        }
+        int people = path.totalPeople();
+        double cost = path.totalCost();
+        List<Region> regions = path.getRegions();
+        startKind(PATHS);
+        if (format == ReportFormat.CSV) {
+            buffer.append(people).append(',');
+            csvNumber(cost);
+            buffer.append(',');
+            boolean quoted = false;
+            for (Region region : regions) {
+                if (needsQuotes(region.getName())) {
+                    quoted = true;
+                    break;
+                }
+            }
+            if (quoted) {
+                buffer.append('"');
+            }
+            for (int i = 0; i < regions.size(); i++) {
+                if (i > 0) {
+                    buffer.append(';');
+                }
+                appendPathName(regions.get(i).getName(), quoted);
+            }
+            if (quoted) {
+                buffer.append('"');
+            }
+            buffer.append('\n');
+        } else {
+            buffer.append("{\"people\":").append(people).append(",\"cost\":");
+            jsonNumber(cost);
+            buffer.append(",\"regions\":[");
+            for (int i = 0; i < regions.size(); i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                jsonString(regions.get(i).getName());
+            }
+            buffer.append("]}\n");
+        }
+        drainIfFull();
+    }
+
+    /*
+     * Writes every path of a stream, one record per path, as the stream hands them over.
+     * Parameters:
+     *      - paths: the paths to write
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the stream or any path in it is null
+     *      - IOException(): gets thrown if the report cannot be written
+     */
+    public void writePaths(Stream<? extends Path> paths) throws IOException {
+        if (paths == null) {
+            throw new IllegalArgumentException("The stream of paths cannot be null!");
+        }
+        Iterator<? extends Path> iterator = paths.iterator();
+        while (iterator.hasNext()) {
+            writePath(iterator.next());
+        }
+    }
+
+    /*
+     * Hands everything buffered so far to the underlying writer and flushes it.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /*
+     * Flushes the report and closes the underlying writer.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            out.close();
+        }
+    }
+
+    private static Writer toWriter(OutputStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException("The output stream cannot be null!");
+        }
+        return new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Writes the CSV header of a kind of record if the last record written was of another
+     *      kind.
+     */
+    private void startKind(int kind) {
+        if (kind == lastKind) {
+            return;
+        }
+        lastKind = kind;
+        if (format == ReportFormat.CSV) {
+            buffer.append(kind == REGIONS ? "region,population,connection,cost\n" : "people,cost,regions\n");
+        }
+    }
+
+    private void csvRegionRow(String name, int population, String connection, double cost) {
+        csvField(name);
+        buffer.append(',').append(population).append(',');
+        if (connection != null) {
+            csvField(connection);
+        }
+        buffer.append(',');
+        if (connection != null) {
+            csvNumber(cost);
+        }
+        buffer.append('\n');
+    }
+
+    private void jsonRegionStart(String name, int population) {
+        buffer.append("{\"region\":");
+        jsonString(name);
+        buffer.append(",\"population\":").append(population).append(",\"connections\":[");
+    }
+
+    private void jsonConnection(boolean first, String name, double cost) {
+        if (!first) {
+            buffer.append(',');
+        }
+        buffer.append("{\"to\":");
+        jsonString(name);
+        buffer.append(",\"cost\":");
+        jsonNumber(cost);
+        buffer.append('}');
+    }
+
+    private static boolean needsQuotes(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Appends one CSV field, in quotes if the text needs them.
+     */
+    private void csvField(String text) {
+        if (needsQuotes(text)) {
+            buffer.append('"');
+            appendCsvText(text);
+            buffer.append('"');
+        } else {
+            buffer.append(text);
+        }
+    }
+
+    /*
+     * Appends the text of a quoted CSV field, doubling any quotes in it.
+     */
+    private void appendCsvText(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+    }
+
+    /*
+     * Appends one region name of a path's CSV field, putting a '\' in front of every ';' and
+     *      '\' in it so the names can be split apart again, and doubling any quotes in it if
+     *      the field is quoted.
+     */
+    private void appendPathName(String text, boolean quoted) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ';' || c == '\\') {
+                buffer.append('\\');
+            } else if (c == '"' && quoted) {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+    }
+
+    private void csvNumber(double value) {
+        if (Double.isFinite(value)) {
+            buffer.append(value);
+        }
+    }
+
+    private void jsonNumber(double value) {
+        if (Double.isFinite(value)) {
+            buffer.append(value);
+        } else {
+            buffer.append("null");
+        }
+    }
+
+    private void jsonString(String text) {
+        buffer.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        buffer.append("\\u00").append(Character.forDigit(c >> 4, 16))
+                                .append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        buffer.append(c);
+                    }
+            }
+        }
+        buffer.append('"');
+    }
+
+    private void drainIfFull() throws IOException {
+        if (buffer.length() >= FLUSH_AT) {
+            drain();
+        }
+    }
+
+    /*
+     * Copies the buffer into the reusable chunk and writes it out, so the underlying writer
+     *      never sees a String made just for it.
+     */
+    private void drain() throws IOException {
+        int length = buffer.length();
+        if (length == 0) {
+            return;
+        }
+        if (chunk.length < length) {
+            chunk = new char[length];
+        }
+        buffer.getChars(0, length, chunk, 0);
+        out.write(chunk, 0, length);
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/*
+ * This class saves region graphs to a compact binary file and loads them back. The file holds
+ *      the same arrays a RegionGraph is made of, so loading maps the file into memory and
+ *      copies each array out in one bulk read instead of building a HashMap for every region.
+ *      The regions themselves are only built if a path is asked for.
+ *      Layout, with every number big-endian:
+ *          - header: magic "RELF", format version, region count, connection count, length of
+ *              the name bytes, and a reserved int
+ *          - costs: one double per connection
+ *          - population: one int per region
+ *          - offsets: region count + 1 ints, where the connections of each region start
+ *          - targets: one int per connection, the id of the region it leads to
+ *          - name offsets: region count + 1 ints, where each name starts in the name bytes
+ *          - name bytes: every region name in UTF-8, one after the other
+ */
+public final class ScenarioFile {
+    private static final int MAGIC = 0x52454C46;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+    private ScenarioFile() {
+    }
+
+    /*
+     * Saves the given regions to a file, with each region's position in the list as its id.
+     *      Connections that lead to regions outside of the list are left out.
+     * Parameters:
+     *      - sites: the regions to save
+     *      - file: where to save them
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions or the file is null
+     *      - IOException(): gets thrown if the file cannot be written
+     */
+    public static void write(List<Region> sites, java.nio.file.Path file) throws IOException {
+        write(RegionGraph.compile(sites), file);
+    }
+
+    /*
+     * Saves a compiled graph to a file.
+     * Parameters:
+     *      - graph: the graph to save
+     *      - file: where to save it
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the graph or the file is null
+     *      - IOException(): gets thrown if the file cannot be written
+     */
+    public static void write(RegionGraph graph, java.nio.file.Path file) throws IOException {
+        if (graph == null) {
+            throw new IllegalArgumentException("The region graph cannot be null!");
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("The file cannot be null!");
+        }
+        int n = graph.size();
+        int edges = graph.edgeCount();
+        byte[][] names = new byte[n][];
+        int nameBytes = 0;
+        for (int i = 0; i < n; i++) {
+            names[i] = graph.name(i).getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[i].length;
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(edges);
+            out.writeInt(nameBytes);
+            out.writeInt(0);
+            for (int edge = 0; edge < edges; edge++) {
+                out.writeDouble(graph.cost(edge));
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeInt(graph.population(i));
+            }
+            for (int i = 0; i <= n; i++) {
+                out.writeInt(graph.firstEdge(i));
+            }
+            for (int edge = 0; edge < edges; edge++) {
+                out.writeInt(graph.target(edge));
+            }
+            int at = 0;
+            for (int i = 0; i < n; i++) {
+                out.writeInt(at);
+                at += names[i].length;
+            }
+            out.writeInt(at);
+            for (byte[] name : names) {
+                out.write(name);
+            }
+        }
+    }
+
+    /*
+     * Loads a graph saved with write. The file is checked so that a damaged or foreign file
+     *      is reported here instead of failing later inside a solver.
+     * Parameters:
+     *      - file: the file to load
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the file is null
+     *      - IOException(): gets thrown if the file cannot be read or is not a valid scenario
+     *          file
+     * Return:
+     *      - RegionGraph: the loaded graph
+     */
+    public static RegionGraph load(java.nio.file.Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("The file cannot be null!");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a scenario file: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a scenario file: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported scenario file version " + version + ": " + file);
+            }
+            int n = buffer.getInt();
+            int edges = buffer.getInt();
+            int nameBytes = buffer.getInt();
+            buffer.getInt();
+            long expected = HEADER_BYTES + (long) edges * Double.BYTES
+                    + ((long) n + (n + 1) + edges + (n + 1)) * Integer.BYTES + nameBytes;
+            if (n < 0 || edges < 0 || nameBytes < 0 || expected != size) {
+                throw new IOException("Damaged scenario file: " + file);
+            }
+
+            double[] costs = new double[edges];
+            buffer.asDoubleBuffer().get(costs);
+            buffer.position(buffer.position() + edges * Double.BYTES);
+            int[] population = readInts(buffer, n);
+            int[] offsets = readInts(buffer, n + 1);
+            int[] targets = readInts(buffer, edges);
+            int[] nameOffsets = readInts(buffer, n + 1);
+            byte[] bytes = new byte[nameBytes];
+            buffer.get(bytes);
+
+            checkRows(offsets, targets, n, file);
+            if (nameOffsets[0] != 0 || nameOffsets[n] != nameBytes) {
+                throw new IOException("Damaged scenario file: " + file);
+            }
+            String[] names = new String[n];
+            for (int i = 0; i < n; i++) {
+                if (nameOffsets[i + 1] < nameOffsets[i]) {
+                    throw new IOException("Damaged scenario file: " + file);
+                }
+                names[i] = new String(bytes, nameOffsets[i], nameOffsets[i + 1] - nameOffsets[i],
+                        StandardCharsets.UTF_8);
+            }
+            return RegionGraph.of(names, population, offsets, targets, costs);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    /*
+     * Makes sure every region's connections lie inside the connection arrays and lead to
+     *      existing regions in increasing order of id, as RegionGraph expects.
+     */
+    private static void checkRows(int[] offsets, int[] targets, int n, java.nio.file.Path file)
+            throws IOException {
+        if (offsets[0] != 0 || offsets[n] != targets.length) {
+            throw new IOException("Damaged scenario file: " + file);
+        }
+        for (int i = 0; i < n; i++) {
+            if (offsets[i + 1] < offsets[i]) {
+                throw new IOException("Damaged scenario file: " + file);
+            }
+            for (int edge = offsets[i]; edge < offsets[i + 1]; edge++) {
+                if (targets[edge] < 0 || targets[edge] >= n
+                        || (edge > offsets[i] && targets[edge] <= targets[edge - 1])) {
+                    throw new IOException("Damaged scenario file: " + file);
+                }
+            }
+        }
+    }
+}
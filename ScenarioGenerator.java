@@ -0,0 +1,371 @@
+import java.util.*;
+import java.util.stream.*;
+
+/*
+ * This class builds random scenarios for load and what-if testing. Unlike
+ *      Client.createRandomScenario, the same seed always gives the same scenario, the density
+ *      is set through the average number of connections per region, and the network can take
+ *      one of several shapes (see ScenarioTopology).
+ *      The regions are split into fixed blocks, and every block draws from its own random
+ *      stream split off the seed ahead of time. Blocks are generated in parallel, but since
+ *      no block depends on which thread ran it or when, the result does not depend on the
+ *      number of cores either.
+ *      Connections are only ever made between nearby regions or inside clusters, so the work
+ *      grows with the number of connections instead of with every pair of regions, and the
+ *      scenario is built straight into the arrays of a RegionGraph without creating a Region
+ *      or boxing a cost.
+ *      Connections always go both ways at the same cost. Nothing makes sure every region can
+ *      be reached from the first one; sparse scenarios usually leave some regions cut off.
+ */
+public final class ScenarioGenerator {
+    private static final int BLOCK = 1 << 12;
+    private static final double CLUSTER_SHARE = 0.9;
+
+    private final long seed;
+    private final ScenarioTopology topology;
+    private final double averageDegree;
+    private final int minPop;
+    private final int maxPop;
+    private final double minCost;
+    private final double maxCost;
+
+    /*
+     * Creates a generator.
+     * Parameters:
+     *      - seed: the seed every scenario is drawn from
+     *      - topology: the shape of the road network
+     *      - averageDegree: about how many connections each region should have
+     *      - minPop: minimum population per region
+     *      - maxPop: maximum population per region
+     *      - minCost: minimum cost of travel between regions
+     *      - maxCost: maximum cost of travel between regions
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the topology is null, the average
+     *          degree is negative or too high for a grid, or a minimum is larger than its
+     *          maximum
+     */
+    public ScenarioGenerator(long seed, ScenarioTopology topology, double averageDegree,
+                             int minPop, int maxPop, double minCost, double maxCost) {
+        if (topology == null) {
+            throw new IllegalArgumentException("The topology cannot be null!");
+        }
+        if (!(averageDegree >= 0)) {
+            throw new IllegalArgumentException("The average degree cannot be negative!");
+        }
+        if (topology == ScenarioTopology.GRID && averageDegree > 8) {
+            throw new IllegalArgumentException("A grid cannot have an average degree above 8!");
+        }
+        if (minPop > maxPop) {
+            throw new IllegalArgumentException("The minimum population cannot be larger than the maximum!");
+        }
+        if (!(minCost <= maxCost)) {
+            throw new IllegalArgumentException("The minimum cost cannot be larger than the maximum!");
+        }
+        this.seed = seed;
+        this.topology = topology;
+        this.averageDegree = averageDegree;
+        this.minPop = minPop;
+        this.maxPop = maxPop;
+        this.minCost = minCost;
+        this.maxCost = maxCost;
+    }
+
+    /*
+     * Builds a scenario as a list of regions, with "Region #0" as the start.
+     * Parameters:
+     *      - regions: how many regions to create
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the number of regions is negative
+     * Return:
+     *      - List<Region>: the generated regions
+     */
+    public List<Region> generate(int regions) {
+        return new ArrayList<>(generateGraph(regions).regions());
+    }
+
+    /*
+     * Builds a scenario as a compiled graph, without creating any Region objects.
+     * Parameters:
+     *      - regions: how many regions to create
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the number of regions is negative
+     * Return:
+     *      - RegionGraph: the generated scenario, with region 0 as the start
+     */
+    public RegionGraph generateGraph(int regions) {
+        if (regions < 0) {
+            throw new IllegalArgumentException("The number of regions cannot be negative!");
+        }
+        int n = regions;
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] siteRandom = new SplittableRandom[blocks];
+        SplittableRandom[] edgeRandom = new SplittableRandom[blocks];
+        for (int b = 0; b < blocks; b++) {
+            siteRandom[b] = root.split();
+            edgeRandom[b] = root.split();
+        }
+
+        String[] names = new String[n];
+        int[] population = new int[n];
+        double[] x = new double[n];
+        double[] y = new double[n];
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            SplittableRandom random = siteRandom[b];
+            for (int i = b * BLOCK; i < Math.min(n, (b + 1) * BLOCK); i++) {
+                names[i] = "Region #" + i;
+                population[i] = minPop + (int) random.nextLong((long) maxPop - minPop + 1);
+                x[i] = random.nextDouble();
+                y[i] = random.nextDouble();
+            }
+        });
+
+        Edges[] found = new Edges[blocks];
+        if (topology == ScenarioTopology.GEOMETRIC) {
+            Geometric geometric = new Geometric(n, x, y);
+            IntStream.range(0, blocks).parallel()
+                    .forEach(b -> found[b] = geometric.connect(b * BLOCK, Math.min(n, (b + 1) * BLOCK)));
+        } else if (topology == ScenarioTopology.GRID) {
+            IntStream.range(0, blocks).parallel()
+                    .forEach(b -> found[b] = grid(n, b * BLOCK, Math.min(n, (b + 1) * BLOCK), edgeRandom[b]));
+        } else {
+            IntStream.range(0, blocks).parallel()
+                    .forEach(b -> found[b] = clustered(n, b * BLOCK, Math.min(n, (b + 1) * BLOCK), edgeRandom[b]));
+        }
+        return build(names, population, found);
+    }
+
+    /*
+     * Connects regions that lie within a fixed distance of each other. The distance is picked
+     *      so that a region away from the edges has averageDegree neighbors on average, and the
+     *      regions are sorted into square cells of that size so only neighboring cells are
+     *      searched.
+     */
+    private final class Geometric {
+        private final double[] x;
+        private final double[] y;
+        private final double radius;
+        private final int side;
+        private final int[] cellStart;
+        private final int[] members;
+
+        Geometric(int n, double[] x, double[] y) {
+            this.x = x;
+            this.y = y;
+            radius = Math.min(Math.sqrt(2), Math.sqrt(averageDegree / (Math.PI * Math.max(1, n))));
+            side = (int) Math.max(1, Math.min(Math.floor(1 / Math.max(radius, 1e-9)), Math.sqrt(n) + 1));
+            cellStart = new int[side * side + 1];
+            members = new int[n];
+            for (int i = 0; i < n; i++) {
+                cellStart[cell(i) + 1]++;
+            }
+            for (int c = 0; c < side * side; c++) {
+                cellStart[c + 1] += cellStart[c];
+            }
+            int[] fill = Arrays.copyOf(cellStart, side * side);
+            for (int i = 0; i < n; i++) {
+                members[fill[cell(i)]++] = i;
+            }
+        }
+
+        private int cell(int i) {
+            return column(x[i]) + side * column(y[i]);
+        }
+
+        private int column(double position) {
+            return Math.min(side - 1, (int) (position * side));
+        }
+
+        Edges connect(int from, int to) {
+            Edges edges = new Edges();
+            for (int i = from; i < to; i++) {
+                int cx = column(x[i]);
+                int cy = column(y[i]);
+                for (int ny = Math.max(0, cy - 1); ny <= Math.min(side - 1, cy + 1); ny++) {
+                    for (int nx = Math.max(0, cx - 1); nx <= Math.min(side - 1, cx + 1); nx++) {
+                        int c = nx + side * ny;
+                        for (int at = cellStart[c]; at < cellStart[c + 1]; at++) {
+                            int j = members[at];
+                            double distance = Math.hypot(x[i] - x[j], y[i] - y[j]);
+                            if (j > i && distance <= radius) {
+                                edges.add(i, j, round2(minCost + (maxCost - minCost) * distance / radius));
+                            }
+                        }
+                    }
+                }
+            }
+            return edges;
+        }
+    }
+
+    /*
+     * Connects every region to the regions to its right and below it on a square grid, each
+     *      with a chance of averageDegree / 4, and past a degree of 4 adds the diagonals below
+     *      it with a chance of (averageDegree - 4) / 4.
+     */
+    private Edges grid(int n, int from, int to, SplittableRandom random) {
+        Edges edges = new Edges();
+        int side = (int) Math.ceil(Math.sqrt(n));
+        double straight = Math.min(1, averageDegree / 4);
+        double diagonal = Math.max(0, (averageDegree - 4) / 4);
+        for (int i = from; i < to; i++) {
+            int column = i % side;
+            if (column + 1 < side && i + 1 < n && random.nextDouble() < straight) {
+                edges.add(i, i + 1, randomCost(random));
+            }
+            if (i + side < n && random.nextDouble() < straight) {
+                edges.add(i, i + side, randomCost(random));
+            }
+            if (column + 1 < side && i + side + 1 < n && random.nextDouble() < diagonal) {
+                edges.add(i, i + side + 1, randomCost(random));
+            }
+            if (column > 0 && i + side - 1 < n && random.nextDouble() < diagonal) {
+                edges.add(i, i + side - 1, randomCost(random));
+            }
+        }
+        return edges;
+    }
+
+    /*
+     * Splits the regions into runs of consecutive ids that act as clusters. Most of a region's
+     *      connections go to others in its cluster at the cheap end of the cost range, and the
+     *      rest go to random regions in other clusters at the expensive end.
+     */
+    private Edges clustered(int n, int from, int to, SplittableRandom random) {
+        Edges edges = new Edges();
+        int size = (int) Math.max(8, Math.ceil(2 * averageDegree));
+        double inside = Math.min(1, CLUSTER_SHARE * averageDegree / (size - 1));
+        double bridges = (1 - CLUSTER_SHARE) * averageDegree / 2;
+        double middle = (minCost + maxCost) / 2;
+        for (int i = from; i < to; i++) {
+            int clusterStart = i / size * size;
+            int clusterEnd = Math.min(n, clusterStart + size);
+            for (int j = i + 1; j < clusterEnd; j++) {
+                if (random.nextDouble() < inside) {
+                    edges.add(i, j, round2(minCost + random.nextDouble() * (middle - minCost)));
+                }
+            }
+            int outside = n - (clusterEnd - clusterStart);
+            if (outside == 0) {
+                continue;
+            }
+            int count = (int) bridges + (random.nextDouble() < bridges - (int) bridges ? 1 : 0);
+            for (int k = 0; k < count; k++) {
+                int j = random.nextInt(outside);
+                if (j >= clusterStart) {
+                    j += clusterEnd - clusterStart;
+                }
+                edges.add(i, j, round2(middle + random.nextDouble() * (maxCost - middle)));
+            }
+        }
+        return edges;
+    }
+
+    private double randomCost(SplittableRandom random) {
+        return round2(minCost + random.nextDouble() * (maxCost - minCost));
+    }
+
+    /*
+     * Puts the connections found by every block into the rows of a RegionGraph, in both
+     *      directions. Each row is sorted by target, and if the same pair of regions was
+     *      connected twice only the first connection is kept.
+     */
+    private static RegionGraph build(String[] names, int[] population, Edges[] found) {
+        int n = names.length;
+        int[] offsets = new int[n + 1];
+        for (Edges edges : found) {
+            for (int k = 0; k < edges.size; k++) {
+                offsets[edges.from[k] + 1]++;
+                offsets[edges.to[k] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] targets = new int[offsets[n]];
+        double[] costs = new double[offsets[n]];
+        for (Edges edges : found) {
+            for (int k = 0; k < edges.size; k++) {
+                int a = edges.from[k];
+                int b = edges.to[k];
+                targets[fill[a]] = b;
+                costs[fill[a]++] = edges.cost[k];
+                targets[fill[b]] = a;
+                costs[fill[b]++] = edges.cost[k];
+            }
+        }
+
+        int[] kept = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> kept[i] = sortRow(targets, costs, offsets[i], offsets[i + 1]));
+        int[] nextOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            nextOffsets[i + 1] = nextOffsets[i] + kept[i];
+        }
+        if (nextOffsets[n] == offsets[n]) {
+            return RegionGraph.of(names, population, offsets, targets, costs);
+        }
+        int[] nextTargets = new int[nextOffsets[n]];
+        double[] nextCosts = new double[nextOffsets[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(targets, offsets[i], nextTargets, nextOffsets[i], kept[i]);
+            System.arraycopy(costs, offsets[i], nextCosts, nextOffsets[i], kept[i]);
+        }
+        return RegionGraph.of(names, population, nextOffsets, nextTargets, nextCosts);
+    }
+
+    /*
+     * Sorts one row by target, keeping the first connection to each target in the order they
+     *      were added, and moves the kept connections to the front of the row.
+     * Return:
+     *      - int: how many connections were kept
+     */
+    private static int sortRow(int[] targets, double[] costs, int start, int end) {
+        long[] keys = new long[end - start];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = ((long) targets[start + k] << 32) | k;
+        }
+        Arrays.sort(keys);
+        double[] rowCosts = Arrays.copyOfRange(costs, start, end);
+        int kept = 0;
+        for (int k = 0; k < keys.length; k++) {
+            int target = (int) (keys[k] >>> 32);
+            if (kept > 0 && targets[start + kept - 1] == target) {
+                continue;
+            }
+            targets[start + kept] = target;
+            costs[start + kept] = rowCosts[(int) keys[k]];
+            kept++;
+        }
+        return kept;
+    }
+
+    /*
+     * Rounds a number to two decimal places, like the costs of Client.createRandomScenario.
+     */
+    private static double round2(double num) {
+        return Math.round(num * 100) / 100.0;
+    }
+
+    /*
+     * A growable list of connections, stored as three parallel arrays.
+     */
+    private static final class Edges {
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private double[] cost = new double[16];
+        private int size;
+
+        void add(int a, int b, double c) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+                cost = Arrays.copyOf(cost, size * 2);
+            }
+            from[size] = a;
+            to[size] = b;
+            cost[size] = c;
+            size++;
+        }
+    }
+}
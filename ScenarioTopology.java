@@ -0,0 +1,25 @@
+/*
+ * The different shapes of road network that ScenarioGenerator can build. Every connection
+ *      goes both ways at the same cost, like the ones Client.createRandomScenario makes.
+ */
+public enum ScenarioTopology {
+    /*
+     * Regions are scattered over a square and connected to every region within a fixed
+     *      distance, with costs growing with the distance. Neighbors are mostly close by, like
+     *      towns connected by local roads.
+     */
+    GEOMETRIC,
+
+    /*
+     * Regions sit on a square grid and connect to the regions next to them, with diagonal
+     *      shortcuts once the average degree goes past 4, like a city road network. The
+     *      average degree can be at most 8.
+     */
+    GRID,
+
+    /*
+     * Regions form small, tightly connected clusters joined by a few expensive long-distance
+     *      links, like towns grouped around a few regional hubs.
+     */
+    CLUSTERED
+}
@@ -0,0 +1,135 @@
+import java.util.*;
+
+/*
+ * This class collects what a solver did while looking for the best path: how many search
+ *      nodes it expanded, how many branches it skipped and why, how many paths it compared
+ *      while ranking them, how deep the search went and how long each phase took. Pass one
+ *      to Client.findPath to fill it in. Solvers only check for it once per step, so leaving
+ *      it out costs next to nothing.
+ */
+public final class SearchStats {
+    private long nodesExpanded;
+    private long pathsCompared;
+    private int maxDepth;
+    private final long[] prunes = new long[PruneReason.values().length];
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+
+    /*
+     * Returns how many search nodes (partial paths or table states) were expanded.
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /*
+     * Returns how many times two paths were compared to decide which one is better.
+     */
+    public long getPathsCompared() {
+        return pathsCompared;
+    }
+
+    /*
+     * Returns the number of regions in the longest path the search reached.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /*
+     * Returns how many branches were skipped for the given reason.
+     */
+    public long getPrunes(PruneReason reason) {
+        return prunes[reason.ordinal()];
+    }
+
+    /*
+     * Returns how many branches were skipped for any reason.
+     */
+    public long getTotalPrunes() {
+        long total = 0;
+        for (long count : prunes) {
+            total += count;
+        }
+        return total;
+    }
+
+    /*
+     * Returns the wall time spent in each phase of the solve, in nanoseconds, in the order the
+     *      phases ran.
+     */
+    public Map<String, Long> getPhaseNanos() {
+        return Collections.unmodifiableMap(phaseNanos);
+    }
+
+    void expanded(int depth) {
+        nodesExpanded++;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    void pruned(PruneReason reason) {
+        prunes[reason.ordinal()]++;
+    }
+
+    void compared() {
+        pathsCompared++;
+    }
+
+    void compared(long count) {
+        pathsCompared += count;
+    }
+
+    void phase(String name, long nanos) {
+        phaseNanos.merge(name, nanos, Long::sum);
+    }
+
+    /*
+     * Adds the counts from another set of stats into this one. The parallel solver gives each
+     *      task its own stats and merges them here once the task is done.
+     */
+    synchronized void merge(SearchStats other) {
+        nodesExpanded += other.nodesExpanded;
+        pathsCompared += other.pathsCompared;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        for (int i = 0; i < prunes.length; i++) {
+            prunes[i] += other.prunes[i];
+        }
+        for (Map.Entry<String, Long> phase : other.phaseNanos.entrySet()) {
+            phase(phase.getKey(), phase.getValue());
+        }
+    }
+
+    /*
+     * Returns the stats as a single line of JSON, for example:
+     *      {"nodesExpanded":12,"pathsCompared":3,"maxDepth":4,
+     *       "prunes":{"POPULATION_BOUND":2,...},"phaseNanos":{"compile":1500,...}}
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"nodesExpanded\":").append(nodesExpanded);
+        json.append(",\"pathsCompared\":").append(pathsCompared);
+        json.append(",\"maxDepth\":").append(maxDepth);
+        json.append(",\"prunes\":{");
+        for (PruneReason reason : PruneReason.values()) {
+            if (reason.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(reason.name()).append("\":").append(prunes[reason.ordinal()]);
+        }
+        json.append("},\"phaseNanos\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('"').append(phase.getKey()).append("\":").append(phase.getValue());
+        }
+        return json.append("}}").toString();
+    }
+
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * The different search engines that Client.findPath can use to pick the best relief path.
+ *      Every mode returns the same path for the same list of sites.
+ */
+public enum SolverMode {
+    /*
+     * Lists every possible path from the first site and then ranks them. Simple, but the work
+     *      grows factorially with the number of sites.
+     */
+    EXHAUSTIVE,
+
+    /*
+     * Held-Karp style dynamic programming over (visited sites, end site) pairs. The work grows
+     *      with 2^n * n^2 instead of n!, which keeps 20+ sites within seconds.
+     */
+    SUBSET_DP,
+
+    /*
+     * Depth-first search that only keeps the best path found so far and skips branches that
+     *      cannot beat it. Memory stays proportional to the depth of the search.
+     */
+    BRANCH_AND_BOUND,
+
+    /*
+     * The branch-and-bound search split across every core with a ForkJoinPool. Workers share
+     *      the best bound found so far.
+     */
+    PARALLEL,
+
+    /*
+     * The same dynamic programming as SUBSET_DP, worked through one layer of visited sites at a
+     *      time with the table kept in memory-mapped temporary files instead of on the heap.
+     *      Slower for small inputs, but goes up to 32 sites when there is enough disk and memory.
+     */
+    OFF_HEAP_DP
+}
@@ -0,0 +1,635 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.lang.management.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/*
+ * Differential, batch and scaling tests for the solvers. The first part builds thousands of
+ *      small scenarios from a fixed seed and checks every other way of finding a path against
+ *      the exhaustive Client.findPath. The batch tests check that BatchSolver answers every
+ *      scenario once, reports the ones it could not solve and stops when it is closed. The
+ *      cache tests check PathCache's hits, misses, eviction order and invalidation. The
+ *      last part runs the solvers on sizes the exhaustive
+ *      search could never finish and fails if one of them takes far longer, or allocates far
+ *      more, than it should. Each time budget is about ten times what the work takes on a
+ *      single core, which leaves room for a slow machine but still catches a solver that
+ *      has gone exponential or started boxing.
+ *      Starts where nobody lives are left out of the every-start check, since
+ *      Client.bestPath cannot rank paths that help nobody.
+ */
+public class SolverTesting {
+    private static final long SEED = 20240601L;
+    private static final int SCENARIOS = 2000;
+    private static final int MAX_SMALL = 9;
+    private static final double DELTA = 1e-6;
+
+    private static List<List<Region>> small;
+    private static List<Path> expected;
+
+    @BeforeAll
+    public static void buildScenarios() {
+        Random random = new Random(SEED);
+        small = new ArrayList<>();
+        expected = new ArrayList<>();
+        for (int i = 0; i < SCENARIOS; i++) {
+            List<Region> sites = randomScenario(random, 1 + random.nextInt(MAX_SMALL));
+            small.add(sites);
+            expected.add(Client.findPath(new ArrayList<>(sites)));
+        }
+    }
+
+    @TestFactory
+    @DisplayName("DIFFERENTIAL - every solver mode matches the exhaustive search")
+    public Stream<DynamicTest> modesMatchExhaustive() {
+        return Arrays.stream(SolverMode.values()).map(mode -> DynamicTest.dynamicTest(mode.name(), () -> {
+            for (int i = 0; i < SCENARIOS; i++) {
+                Path found = Client.findPath(new ArrayList<>(small.get(i)), mode);
+                assertSamePath(expected.get(i), found, mode + ", scenario " + i);
+            }
+        }));
+    }
+
+    @Test
+    @DisplayName("DIFFERENTIAL - the start alone is never picked while it has a neighbor")
+    public void emptyNeighborsAreVisited() {
+        Region start = new Region("Region #0", 5);
+        Region empty = new Region("Region #1", 0);
+        Region emptier = new Region("Region #2", 0);
+        start.addConnection(empty, 100);
+        empty.addConnection(emptier, 0);
+        List<Region> sites = List.of(start, empty, emptier);
+
+        Path expectedPath = new Path().extend(start).extend(empty).extend(emptier);
+        assertSamePath(expectedPath, Client.findPath(new ArrayList<>(sites)), "exhaustive");
+        for (SolverMode mode : SolverMode.values()) {
+            assertSamePath(expectedPath, Client.findPath(new ArrayList<>(sites), mode), mode.name());
+        }
+        assertSamePlan(expectedPath, Client.findPathPreprocessed(new ArrayList<>(sites), SolverMode.SUBSET_DP),
+                "preprocessed");
+        assertSamePath(expectedPath, Client.findPathFromEveryStart(sites).get(0), "every start");
+        assertSamePath(expectedPath, Client.findPathWithinBudget(new ArrayList<>(sites), 100), "budget 100");
+        assertSamePath(new Path().extend(start), Client.findPathWithinBudget(new ArrayList<>(sites), 50),
+                "budget 50");
+    }
+
+    @Test
+    @DisplayName("DIFFERENTIAL - preprocessing keeps the best people and cost")
+    public void preprocessedMatchesExhaustive() {
+        for (int i = 0; i < SCENARIOS; i++) {
+            Path found = Client.findPathPreprocessed(new ArrayList<>(small.get(i)), SolverMode.SUBSET_DP);
+            assertSamePlan(expected.get(i), found, "scenario " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("DIFFERENTIAL - every start matches the exhaustive search from that start")
+    public void everyStartMatchesExhaustive() {
+        for (int i = 0; i < SCENARIOS / 10; i++) {
+            List<Region> sites = small.get(i);
+            List<Path> found = Client.findPathFromEveryStart(sites);
+            assertEquals(sites.size(), found.size());
+            for (int start = 0; start < sites.size(); start++) {
+                if (sites.get(start).getPopulation() == 0) {
+                    continue;
+                }
+                List<Region> moved = new ArrayList<>(sites);
+                moved.add(0, moved.remove(start));
+                assertSamePath(Client.findPath(moved), found.get(start), "scenario " + i + ", start " + start);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("DIFFERENTIAL - budgeted search matches the best path that stays within budget")
+    public void budgetMatchesFilteredPaths() {
+        Random random = new Random(SEED + 1);
+        for (int i = 0; i < SCENARIOS / 4; i++) {
+            List<Region> sites = small.get(i);
+            double budget = random.nextInt(4) * 100 + random.nextDouble() * 500;
+            Path best = null;
+            for (Path path : Client.allPaths(sites).collect(Collectors.toList())) {
+                if (path.size() < 2 || path.totalCost() > budget) {
+                    continue;
+                }
+                int order = best == null ? -1 : PathRanking.compare(path.totalPeople(), path.totalCost(),
+                        best.totalPeople(), best.totalCost());
+                if (order < 0 || order == 0 && extendsPath(path, best)) {
+                    best = path;
+                }
+            }
+            if (best == null) {
+                best = new Path().extend(sites.get(0));
+            }
+            Path found = Client.findPathWithinBudget(new ArrayList<>(sites), budget);
+            assertSamePath(best, found, "scenario " + i + ", budget " + budget);
+        }
+    }
+
+    @Test
+    @DisplayName("DIFFERENTIAL - a planning session matches a fresh search after every edit")
+    public void sessionMatchesFreshSearch() {
+        Random random = new Random(SEED + 2);
+        for (int i = 0; i < SCENARIOS / 5; i++) {
+            List<Region> sites = small.get(i);
+            int n = sites.size();
+            PlanningSession session = new PlanningSession(sites);
+            Region[] current = sites.toArray(new Region[0]);
+            int edits = random.nextInt(10) == 0 ? 80 : 1 + random.nextInt(8);
+            for (int e = 0; e < edits; e++) {
+                int from = random.nextInt(n);
+                int to = random.nextInt(n);
+                int kind = random.nextInt(3);
+                if (kind == 0) {
+                    session.addConnection(current[from], current[to], random.nextInt(3) * 100);
+                } else if (kind == 1) {
+                    session.removeConnection(current[from], current[to]);
+                } else {
+                    int population = random.nextInt(4) * 100 + (from == 0 ? 1 : 0);
+                    session.setPopulation(current[from], population);
+                    current[from] = new Region(current[from].getName(), population);
+                }
+                if (edits < 80 || e == edits - 1) {
+                    Path fresh = Client.findPath(session.getGraph(), SolverMode.EXHAUSTIVE);
+                    assertSamePath(fresh, session.findPath(), "scenario " + i + ", edit " + e);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("DIFFERENTIAL - a planning session finds regions by their latest population")
+    public void sessionFindsRegionsByPopulation() {
+        Region first = new Region("Twin", 5);
+        Region second = new Region("Twin", 7);
+        first.addConnection(second, 10);
+        PlanningSession session = new PlanningSession(List.of(first, second));
+
+        session.setPopulation(first, 7);
+        assertThrows(IllegalArgumentException.class, () -> session.setPopulation(first, 8));
+        session.setPopulation(new Region("Twin", 7), 9);
+        assertEquals(9, session.getGraph().population(0));
+        assertEquals(7, session.getGraph().population(1));
+        session.setPopulation(new Region("Twin", 7), 3);
+        assertEquals(3, session.getGraph().population(1));
+        assertEquals(12, session.findPath().totalPeople());
+    }
+
+    @Test
+    @DisplayName("BATCH - every answer belongs to its scenario and failures are reported")
+    public void batchAnswersEveryScenario() {
+        List<List<Region>> scenarios = new ArrayList<>(small.subList(0, 40));
+        scenarios.add(null);
+        scenarios.add(new ArrayList<>());
+        List<Region> broken = new ArrayList<>(small.get(0));
+        broken.add(null);
+        scenarios.add(broken);
+
+        List<BatchResult> answers;
+        try (BatchSolver solver = new BatchSolver(2, 4, Duration.ofSeconds(10));
+             Stream<BatchResult> stream = solver.solve(scenarios)) {
+            answers = stream.collect(Collectors.toList());
+        }
+        assertEquals(scenarios.size(), answers.size());
+        BatchResult[] byIndex = new BatchResult[scenarios.size()];
+        for (BatchResult answer : answers) {
+            assertNull(byIndex[answer.getIndex()], "answer " + answer.getIndex() + " came twice");
+            byIndex[answer.getIndex()] = answer;
+        }
+        for (int i = 0; i < 40; i++) {
+            assertTrue(byIndex[i].isSolved(), "scenario " + i + ": " + byIndex[i]);
+            assertTrue(byIndex[i].getResult().isOptimal(), "scenario " + i + " was not finished");
+            Path found = byIndex[i].getResult().getPath();
+            assertSamePath(expected.get(i), found, "scenario " + i);
+            assertNotSame(small.get(i).get(0), found.getStart(), "scenario " + i + " kept the caller's region");
+        }
+        assertInstanceOf(IllegalArgumentException.class, byIndex[40].getFailure());
+        assertTrue(byIndex[41].isSolved());
+        assertNull(byIndex[41].getResult());
+        assertFalse(byIndex[42].isSolved());
+    }
+
+    @Test
+    @DisplayName("BATCH - closing the stream cancels the scenarios still running")
+    public void batchStreamCancels() throws InterruptedException {
+        List<List<Region>> scenarios = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            scenarios.add(randomScenario(new Random(SEED + i), 60, 0.5));
+        }
+        try (BatchSolver solver = new BatchSolver(1, 2, Duration.ofSeconds(30))) {
+            Stream<BatchResult> stream = solver.solve(scenarios);
+            Iterator<BatchResult> answers = stream.iterator();
+            Thread closer = new Thread(() -> {
+                pause(200);
+                stream.close();
+            });
+            long started = System.nanoTime();
+            closer.start();
+            assertThrows(CancellationException.class, answers::next);
+            closer.join();
+            assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5), "the batch was not cancelled");
+            assertThrows(CancellationException.class, answers::next);
+        }
+    }
+
+    @Test
+    @DisplayName("BATCH - closing the solver answers every scenario it was handed")
+    public void batchSolverCloses() throws InterruptedException {
+        List<List<Region>> scenarios = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            scenarios.add(randomScenario(new Random(SEED + i), 60, 0.5));
+        }
+        BatchSolver solver = new BatchSolver(1, 3, Duration.ofSeconds(30));
+        Thread closer = new Thread(() -> {
+            pause(200);
+            solver.close();
+        });
+        long started = System.nanoTime();
+        closer.start();
+        List<BatchResult> answers = solver.solve(scenarios).collect(Collectors.toList());
+        closer.join();
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5), "the solver did not stop");
+        assertEquals(3, answers.size());
+        int stopped = 0;
+        for (BatchResult answer : answers) {
+            if (answer.isSolved()) {
+                stopped++;
+                assertFalse(answer.getResult().isOptimal(), "scenario " + answer.getIndex());
+                assertNotNull(answer.getResult().getPath());
+            } else {
+                assertInstanceOf(CancellationException.class, answer.getFailure());
+            }
+        }
+        assertEquals(1, stopped, "scenarios interrupted while running");
+    }
+
+    @Test
+    @DisplayName("VERSIONS - concurrent writers never lose a change and every kept version can be read")
+    public void versionsSurviveConcurrentWriters() throws InterruptedException {
+        int writers = 4;
+        int edits = 2000;
+        int keep = 8;
+        List<Region> sites = new ArrayList<>();
+        for (int i = 0; i < writers + 2; i++) {
+            sites.add(new Region("Region #" + i, 10));
+        }
+        VersionedGraph graph = new VersionedGraph(sites, keep);
+        Queue<String> problems = new ConcurrentLinkedQueue<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                long version = graph.snapshot().getVersion();
+                try {
+                    if (graph.snapshot(version).getVersion() != version) {
+                        problems.add("snapshot " + version + " came back as another version");
+                    }
+                } catch (IllegalArgumentException e) {
+                    if (graph.snapshot().getVersion() - version < keep) {
+                        problems.add("snapshot " + version + " was lost: " + e.getMessage());
+                    }
+                }
+            }
+        });
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int owner = w;
+            threads.add(new Thread(() -> {
+                Region own = sites.get(owner);
+                for (int i = 1; i <= edits; i++) {
+                    graph.addConnection(own, sites.get(writers + i % 2), i);
+                    long version = graph.setPopulation(own, 10 + i);
+                    own = new Region(own.getName(), 10 + i);
+                    try {
+                        if (graph.snapshot(version).getGraph().population(owner) != 10 + i) {
+                            problems.add("version " + version + " does not hold its population");
+                        }
+                    } catch (IllegalArgumentException e) {
+                        if (graph.snapshot().getVersion() - version < keep) {
+                            problems.add("version " + version + " was lost: " + e.getMessage());
+                        }
+                    }
+                }
+            }));
+        }
+        reader.start();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertEquals(Collections.emptyList(), new ArrayList<>(problems));
+        GraphSnapshot last = graph.snapshot();
+        assertEquals(2L * writers * edits, last.getVersion());
+        for (int w = 0; w < writers; w++) {
+            assertEquals(10 + edits, last.getGraph().population(w));
+            assertEquals(edits - 1, last.getGraph().costBetween(w, writers + 1), DELTA, "writer " + w);
+            assertEquals(edits, last.getGraph().costBetween(w, writers), DELTA, "writer " + w);
+        }
+        for (long version = last.getVersion() - keep + 1; version <= last.getVersion(); version++) {
+            assertEquals(version, graph.snapshot(version).getVersion());
+        }
+        assertThrows(IllegalArgumentException.class, () -> graph.snapshot(last.getVersion() - keep));
+        assertThrows(IllegalArgumentException.class, () -> graph.snapshot(last.getVersion() + 1));
+    }
+
+    @Test
+    @DisplayName("VERSIONS - regions are found by their population in the latest version")
+    public void versionsFindRegionsByPopulation() throws InterruptedException {
+        Region first = new Region("Twin", 5);
+        Region second = new Region("Twin", 7);
+        first.addConnection(second, 10);
+        VersionedGraph graph = new VersionedGraph(List.of(first, second));
+
+        graph.setPopulation(first, 7);
+        assertThrows(IllegalArgumentException.class, () -> graph.setPopulation(first, 8));
+        graph.setPopulation(new Region("Twin", 7), 9);
+        assertEquals(9, graph.snapshot().getGraph().population(0));
+        assertEquals(7, graph.snapshot().getGraph().population(1));
+        graph.setPopulation(new Region("Twin", 7), 3);
+        assertEquals(3, graph.snapshot().getGraph().population(1));
+
+        Region racing = new Region("Twin", 9);
+        AtomicInteger won = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int population = 20 + i;
+            threads.add(new Thread(() -> {
+                try {
+                    graph.setPopulation(racing, population);
+                    won.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // another thread changed the region first
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, won.get(), "writers that changed the same region");
+        assertThrows(IllegalArgumentException.class, () -> graph.setPopulation(racing, 1));
+    }
+
+    @Test
+    @DisplayName("CACHE - a repeated scenario is a hit and comes back in the caller's regions")
+    public void cacheCountsHitsAndMisses() {
+        PathCache cache = new PathCache(4);
+        List<Region> first = randomScenario(new Random(1), 8);
+        List<Region> copy = randomScenario(new Random(1), 8);
+        List<Region> other = randomScenario(new Random(2), 8);
+
+        assertSamePlan(Client.findPath(first), cache.findPath(first), "first request");
+        Path again = cache.findPath(copy);
+        assertSamePlan(Client.findPath(copy), again, "repeated request");
+        for (Region region : again.getRegions()) {
+            assertTrue(copy.stream().anyMatch(site -> site == region), "region from the caller's list");
+        }
+        cache.findPath(other);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+
+        first.get(0).addConnection(first.get(1), 1);
+        first.get(1).addConnection(first.get(0), 1);
+        assertSamePlan(Client.findPath(first), cache.findPath(first), "changed scenario");
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("CACHE - a full cache drops the scenario asked for longest ago")
+    public void cacheEvictsLeastRecentlyUsed() {
+        PathCache cache = new PathCache(2);
+        List<Region> a = randomScenario(new Random(3), 6);
+        List<Region> b = randomScenario(new Random(4), 6);
+        List<Region> c = randomScenario(new Random(5), 6);
+
+        cache.findPath(a);
+        cache.findPath(b);
+        cache.findPath(a);
+        cache.findPath(c);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHits());
+
+        cache.findPath(a);
+        assertEquals(2, cache.getHits(), "a was asked for after b, so it was kept");
+        cache.findPath(b);
+        assertEquals(4, cache.getMisses(), "b was dropped to make room for c");
+        assertEquals(0, cache.invalidate(c.get(1)), "c was dropped to make room for b");
+    }
+
+    @Test
+    @DisplayName("CACHE - invalidating a region drops exactly the scenarios that include it")
+    public void cacheInvalidatesByRegion() {
+        PathCache cache = new PathCache(8);
+        Region shared = new Region("Shared", 40);
+        List<Region> a = new ArrayList<>(randomScenario(new Random(6), 5));
+        List<Region> b = new ArrayList<>(randomScenario(new Random(7), 5));
+        List<Region> c = randomScenario(new Random(8), 5);
+        a.add(shared);
+        b.add(new Region("Shared", 40));
+        a.get(0).addConnection(shared, 3);
+
+        cache.findPath(a);
+        cache.findPath(b);
+        cache.findPath(c);
+        assertEquals(0, cache.invalidate(new Region("Shared", 41)));
+        assertEquals(0, cache.invalidate(null));
+        assertEquals(2, cache.invalidate(new Region("Shared", 40)), "both scenarios with the region");
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.invalidate(shared), "nothing left that includes the region");
+        assertEquals(0, cache.invalidate(a.get(0)));
+
+        cache.findPath(c);
+        assertEquals(1, cache.getHits(), "the other scenario is still cached");
+        cache.findPath(a);
+        assertEquals(4, cache.getMisses());
+        assertEquals(1, cache.invalidate(shared));
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.invalidate(c.get(0)));
+    }
+
+    @Test
+    @DisplayName("SCALING - subset DP at 18 sites")
+    public void subsetDpScales() {
+        List<Region> sites = randomScenario(new Random(SEED), 18, 0.4);
+        withinBudget("SUBSET_DP", Duration.ofMillis(1500), 96L << 20,
+                () -> Client.findPath(sites, SolverMode.SUBSET_DP));
+    }
+
+    @Test
+    @DisplayName("SCALING - off-heap DP keeps its table off the heap")
+    public void offHeapDpScales() {
+        List<Region> sites = randomScenario(new Random(SEED), 17, 0.4);
+        withinBudget("OFF_HEAP_DP", Duration.ofSeconds(1), 8L << 20,
+                () -> Client.findPath(sites, SolverMode.OFF_HEAP_DP));
+    }
+
+    @Test
+    @DisplayName("SCALING - branch and bound on a dense network")
+    public void branchAndBoundScales() {
+        List<Region> sites = randomScenario(new Random(SEED), 14, 0.6);
+        withinBudget("BRANCH_AND_BOUND", Duration.ofSeconds(5), 4L << 20,
+                () -> Client.findPath(sites, SolverMode.BRANCH_AND_BOUND));
+        withinBudget("PARALLEL", Duration.ofSeconds(5), -1,
+                () -> Client.findPath(sites, SolverMode.PARALLEL));
+    }
+
+    @Test
+    @DisplayName("SCALING - preprocessing a large sparse network")
+    public void preprocessingScales() {
+        List<Region> sites = new ScenarioGenerator(SEED, ScenarioTopology.CLUSTERED, 2, 100, 1000, 10, 500)
+                .generate(2000);
+        withinBudget("findPathPreprocessed", Duration.ofMillis(200), 8L << 20,
+                () -> Client.findPathPreprocessed(sites, SolverMode.SUBSET_DP));
+    }
+
+    @Test
+    @DisplayName("SCALING - heuristic keeps to its time limit")
+    public void heuristicKeepsTimeLimit() {
+        RegionGraph graph = new ScenarioGenerator(SEED, ScenarioTopology.GEOMETRIC, 5, 100, 1000, 10, 500)
+                .generateGraph(2000);
+        HeuristicSolver solver = new HeuristicSolver(8, 200, Duration.ofMillis(500), SEED);
+        withinBudget("HeuristicSolver", Duration.ofSeconds(1), 16L << 20, () -> solver.solve(graph));
+    }
+
+    @Test
+    @DisplayName("SCALING - 100k regions are generated, saved and loaded in seconds")
+    public void largeScenariosScale() throws Exception {
+        ScenarioGenerator generator = new ScenarioGenerator(SEED, ScenarioTopology.GEOMETRIC, 6, 100, 1000, 10, 500);
+        RegionGraph graph = withinBudget("ScenarioGenerator", Duration.ofSeconds(8), -1,
+                () -> generator.generateGraph(100000));
+        java.nio.file.Path file = Files.createTempFile("scenario", ".relf");
+        try {
+            ScenarioFile.write(graph, file);
+            RegionGraph loaded = withinBudget("ScenarioFile.load", Duration.ofMillis(600), 64L << 20, () -> {
+                try {
+                    return ScenarioFile.load(file);
+                } catch (java.io.IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            });
+            assertEquals(graph.size(), loaded.size());
+            assertEquals(graph.edgeCount(), loaded.edgeCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /*
+     * Sleeps for the given number of milliseconds, giving up early if interrupted.
+     */
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Checks that two paths help the same people for the same cost.
+     */
+    private static void assertSamePlan(Path expected, Path found, String what) {
+        assertNotNull(found, what);
+        assertEquals(expected.totalPeople(), found.totalPeople(), what + ": people helped");
+        assertEquals(expected.totalCost(), found.totalCost(), DELTA, what + ": cost");
+    }
+
+    /*
+     * Checks that two paths visit the same regions in the same order, for the searches that
+     *      break ties the same way Client.findPath does.
+     */
+    private static void assertSamePath(Path expected, Path found, String what) {
+        assertSamePlan(expected, found, what);
+        assertEquals(expected.getRegions(), found.getRegions(), what + ": regions");
+    }
+
+    /*
+     * Checks whether a path starts with every region of another one. Client.allPaths lists a
+     *      path before its extensions, while Client.findPath breaks ties in favor of the
+     *      extensions, so a tied path only takes over from an earlier one that it extends.
+     */
+    private static boolean extendsPath(Path path, Path prefix) {
+        List<Region> regions = path.getRegions();
+        return regions.size() > prefix.size() && regions.subList(0, prefix.size()).equals(prefix.getRegions());
+    }
+
+    /*
+     * Runs a piece of work once and fails if it took longer than the time budget or, where
+     *      the JVM can count it, allocated more than the given number of bytes on this thread.
+     *      A byte budget of -1 skips the allocation check, for work that runs on other
+     *      threads.
+     */
+    private static <T> T withinBudget(String what, Duration time, long bytes, Supplier<T> work) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean counting = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = counting != null ? counting.getThreadAllocatedBytes(thread) : -1;
+        long started = System.nanoTime();
+        T result = work.get();
+        Duration took = Duration.ofNanos(System.nanoTime() - started);
+        assertTrue(took.compareTo(time) <= 0, what + " took " + took.toMillis() + " ms, budget " + time.toMillis() + " ms");
+        if (bytes >= 0 && counting != null && allocatedBefore >= 0) {
+            long allocated = counting.getThreadAllocatedBytes(thread) - allocatedBefore;
+            assertTrue(allocated <= bytes, what + " allocated " + (allocated >> 20) + " MB, budget " + (bytes >> 20) + " MB");
+        }
+        return result;
+    }
+
+    private static List<Region> randomScenario(Random random, int n) {
+        return randomScenario(random, n, random.nextDouble());
+    }
+
+    /*
+     * Builds a random scenario where every pair of regions is connected with the given chance.
+     *      Half of the scenarios use round populations and costs, so ties on people and on
+     *      cost come up often, and half of them have one-way connections or different costs
+     *      in each direction. About a quarter of the regions other than the start have nobody
+     *      living in them, the start's neighbors included, so paths that only pass through
+     *      empty regions are checked too. The start always has people, since Client.bestPath
+     *      cannot rank paths that help nobody.
+     */
+    private static List<Region> randomScenario(Random random, int n, double density) {
+        boolean round = random.nextBoolean();
+        boolean symmetric = random.nextBoolean();
+        List<Region> sites = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int population = round ? random.nextInt(4) * 100 : random.nextInt(1000) + 1;
+            if (i == 0) {
+                population = Math.max(population, 1);
+            } else if (!round && random.nextInt(4) == 0) {
+                population = 0;
+            }
+            sites.add(new Region("Region #" + i, population));
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextDouble() >= density) {
+                    continue;
+                }
+                double cost = round ? random.nextInt(3) * 100 : Math.round(random.nextDouble() * 100000) / 100.0;
+                sites.get(i).addConnection(sites.get(j), cost);
+                if (symmetric) {
+                    sites.get(j).addConnection(sites.get(i), cost);
+                } else if (random.nextBoolean()) {
+                    double back = round ? random.nextInt(3) * 100 : Math.round(random.nextDouble() * 100000) / 100.0;
+                    sites.get(j).addConnection(sites.get(i), back);
+                }
+            }
+        }
+        return sites;
+    }
+}
@@ -0,0 +1,346 @@
+import java.util.*;
+
+/*
+ * This class finds the best relief path with a Held-Karp style dynamic program. For every set
+ *      of visited sites and every site the path could end at, it remembers the cheapest way
+ *      to get there from the first site. Since the people helped only depend on which sites
+ *      were visited, the best path is then picked from those cheapest entries using the same
+ *      ranking as Client.bestPath.
+ *      A filled table can be kept and brought up to date after the graph changes. A changed
+ *      connection can only matter to states whose visited set holds both of its ends, and
+ *      among those only the states that actually come out different are followed any further.
+ *      A population change needs no table work at all.
+ */
+final class SubsetDpSolver {
+    private static final double UNREACHED = Double.POSITIVE_INFINITY;
+
+    private RegionGraph graph;
+    private final SearchStats stats;
+    private final int n;
+    private final double[] table;
+    private final byte[] previous;
+
+    /*
+     * Creates an empty table for the given graph.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - stats: where to count the work done, or null to skip counting
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the graph has too many sites for the
+     *          table to fit in memory
+     */
+    SubsetDpSolver(RegionGraph graph, SearchStats stats) {
+        this.graph = graph;
+        this.stats = stats;
+        n = graph.size();
+        if (n > Integer.SIZE - 1 || (1L << (n - 1)) * n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many sites for the subset DP solver: " + n);
+        }
+        int states = (1 << (n - 1)) * n;
+        table = new double[states];
+        previous = new byte[states];
+        Arrays.fill(table, UNREACHED);
+    }
+
+    /*
+     * Finds the best path through the given sites starting from the first site.
+     * Parameters:
+     *      - sites: the list of all the regions that need help, with the start first
+     * Return:
+     *      - Path: the best possible helping path, the same one Client.findPath picks
+     */
+    static Path solve(List<Region> sites) {
+        return solve(RegionGraph.compile(sites));
+    }
+
+    /*
+     * Finds the best path through a compiled graph starting from the region with id 0.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     * Return:
+     *      - Path: the best possible helping path, the same one Client.findPath picks
+     */
+    static Path solve(RegionGraph graph) {
+        return solve(graph, null);
+    }
+
+    /*
+     * Finds the best path through a compiled graph starting from the region with id 0, and
+     *      counts the work it took.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - stats: where to count the work done, or null to skip counting
+     * Return:
+     *      - Path: the best possible helping path, the same one Client.findPath picks
+     */
+    static Path solve(RegionGraph graph, SearchStats stats) {
+        SubsetDpSolver solver = new SubsetDpSolver(graph, stats);
+        long started = System.nanoTime();
+        solver.fill();
+        long filled = System.nanoTime();
+        int[] order = solver.bestOrder();
+        if (stats != null) {
+            stats.phase("fill", filled - started);
+            stats.phase("select", System.nanoTime() - filled);
+        }
+        return graph.toPath(order, order.length);
+    }
+
+    /*
+     * Fills in the cheapest cost for every reachable (visited set, end site) state. Visited
+     *      sets are walked in increasing order, so every set is finished before any of its
+     *      supersets are extended from it.
+     */
+    void fill() {
+        table[0] = 0;
+        int masks = 1 << (n - 1);
+        for (int mask = 0; mask < masks; mask++) {
+            for (int end = 0; end < n; end++) {
+                if (!isEnd(mask, end)) {
+                    continue;
+                }
+                double soFar = table[mask * n + end];
+                if (soFar == UNREACHED) {
+                    continue;
+                }
+                if (stats != null) {
+                    stats.expanded(Integer.bitCount(mask) + 1);
+                }
+                for (int edge = graph.firstEdge(end); edge < graph.firstEdge(end + 1); edge++) {
+                    int next = graph.target(edge);
+                    int bit = 1 << (next - 1);
+                    if (next == 0 || (mask & bit) != 0) {
+                        continue;
+                    }
+                    int state = (mask | bit) * n + next;
+                    double cost = soFar + graph.cost(edge);
+                    if (cost < table[state]
+                            || (cost == table[state] && listedBefore(mask, end, previous[state]))) {
+                        table[state] = cost;
+                        previous[state] = (byte) end;
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Switches the table over to an edited graph and works out again every state that the
+     *      edits could have changed. A state is worked out again only if it can be entered
+     *      through an edited connection, or through a state that itself came out different;
+     *      every other state keeps its old entry. The table has to be filled before this is
+     *      called.
+     * Parameters:
+     *      - updated: the edited graph, with the same sites as the current one
+     *      - from: the site each edited connection leaves
+     *      - to: the site each edited connection leads to, never the first site
+     *      - count: how many edited connections there are
+     */
+    void refill(RegionGraph updated, int[] from, int[] to, int count) {
+        graph = updated;
+        int[] incoming = new int[n + 1];
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            incoming[graph.target(edge) + 1]++;
+        }
+        for (int site = 0; site < n; site++) {
+            incoming[site + 1] += incoming[site];
+        }
+        int[] sources = new int[graph.edgeCount()];
+        double[] sourceCosts = new double[graph.edgeCount()];
+        int[] filled = Arrays.copyOf(incoming, n);
+        for (int site = 0; site < n; site++) {
+            for (int edge = graph.firstEdge(site); edge < graph.firstEdge(site + 1); edge++) {
+                int at = filled[graph.target(edge)]++;
+                sources[at] = site;
+                sourceCosts[at] = graph.cost(edge);
+            }
+        }
+        int[] needs = new int[count];
+        for (int i = 0; i < count; i++) {
+            needs[i] = bit(from[i]) | bit(to[i]);
+        }
+
+        int masks = 1 << (n - 1);
+        long[] dirtyStates = new long[(masks * n + Long.SIZE - 1) / Long.SIZE];
+        long[] dirtyMasks = new long[(masks + Long.SIZE - 1) / Long.SIZE];
+        for (int mask = 1; mask < masks; mask++) {
+            if (!coversAny(mask, needs)) {
+                continue;
+            }
+            for (int end = 1; end < n; end++) {
+                int rest = mask & ~bit(end);
+                if (rest == mask || !(isDirty(dirtyMasks, rest) || entersThrough(rest, end, from, to, count))) {
+                    continue;
+                }
+                int state = mask * n + end;
+                double oldCost = table[state];
+                int oldPrevious = previous[state];
+                recompute(rest, end, incoming, sources, sourceCosts);
+                if (Double.compare(oldCost, table[state]) != 0 || oldPrevious != previous[state]
+                        || isDirty(dirtyStates, rest * n + previous[state])) {
+                    markDirty(dirtyStates, state);
+                    markDirty(dirtyMasks, mask);
+                }
+            }
+        }
+    }
+
+    /*
+     * Works out the cheapest way into (rest plus end, end) again from the states of rest,
+     *      which have to be up to date already. The winner is picked the same way fill() picks
+     *      it, including which one wins an exact cost tie.
+     */
+    private void recompute(int rest, int end, int[] incoming, int[] sources, double[] sourceCosts) {
+        int state = (rest | bit(end)) * n + end;
+        table[state] = UNREACHED;
+        previous[state] = 0;
+        for (int at = incoming[end]; at < incoming[end + 1]; at++) {
+            int before = sources[at];
+            if (!isEnd(rest, before)) {
+                continue;
+            }
+            double soFar = table[rest * n + before];
+            if (soFar == UNREACHED) {
+                continue;
+            }
+            double cost = soFar + sourceCosts[at];
+            if (cost < table[state]
+                    || (cost == table[state] && listedBefore(rest, before, previous[state]))) {
+                table[state] = cost;
+                previous[state] = (byte) before;
+            }
+        }
+    }
+
+    /*
+     * Checks whether a path that visited rest can step into end through an edited connection.
+     */
+    private boolean entersThrough(int rest, int end, int[] from, int[] to, int count) {
+        for (int i = 0; i < count; i++) {
+            if (to[i] == end && isEnd(rest, from[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean coversAny(int mask, int[] needs) {
+        for (int need : needs) {
+            if ((mask & need) == need) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int bit(int site) {
+        return site == 0 ? 0 : 1 << (site - 1);
+    }
+
+    private static boolean isDirty(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void markDirty(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    /*
+     * Switches the table over to a graph whose only edits are population changes. The costs
+     *      in the table stay valid, so nothing is worked out again.
+     */
+    void repopulate(RegionGraph updated) {
+        graph = updated;
+    }
+
+    /*
+     * Returns the site indexes of the best path in the filled table.
+     */
+    int[] bestOrder() {
+        return sequence(best());
+    }
+
+    /*
+     * Picks the best state once the table is filled, ranking exactly like Client.bestPath.
+     *      The first site alone is only picked when it cannot reach any other site.
+     * Return:
+     *      - int: the index of the winning state in the table
+     */
+    private int best() {
+        int masks = 1 << (n - 1);
+        int[] people = new int[masks];
+        people[0] = graph.population(0);
+        if (PathRanking.startAloneCounts(graph, 0)) {
+            return 0;
+        }
+        int bestState = -1;
+        int bestPeople = 0;
+        for (int mask = 1; mask < masks; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            people[mask] = people[mask & (mask - 1)] + graph.population(low + 1);
+            for (int end = 1; end < n; end++) {
+                int state = mask * n + end;
+                if ((mask & (1 << (end - 1))) == 0 || table[state] == UNREACHED) {
+                    continue;
+                }
+                if (stats != null) {
+                    stats.compared();
+                }
+                int order = bestState < 0 ? -1
+                        : PathRanking.compare(people[mask], table[state], bestPeople, table[bestState]);
+                if (order < 0 || (order == 0 && comparePostOrder(state, bestState) < 0)) {
+                    bestState = state;
+                    bestPeople = people[mask];
+                }
+            }
+        }
+        return bestState;
+    }
+
+    /*
+     * Checks whether a path that visited the given set can end at the given site.
+     */
+    private boolean isEnd(int mask, int end) {
+        if (end == 0) {
+            return mask == 0;
+        }
+        return (mask & (1 << (end - 1))) != 0;
+    }
+
+    /*
+     * Checks whether the cheapest path for (mask, end) is listed before the cheapest path for
+     *      (mask, other) by the exhaustive search. Both paths visit the same sites, so they
+     *      have the same length and this is only reached on an exact cost tie.
+     */
+    private boolean listedBefore(int mask, int end, int other) {
+        int[] a = sequence(mask * n + end);
+        int[] b = sequence(mask * n + other);
+        return PathRanking.comparePostOrder(a, a.length, b, b.length) < 0;
+    }
+
+    private int comparePostOrder(int stateA, int stateB) {
+        int[] a = sequence(stateA);
+        int[] b = sequence(stateB);
+        return PathRanking.comparePostOrder(a, a.length, b, b.length);
+    }
+
+    /*
+     * Walks the stored predecessors back to the first site.
+     * Parameters:
+     *      - state: the table index of the state to rebuild
+     * Return:
+     *      - int[]: the site indexes of the path, starting with the first site
+     */
+    private int[] sequence(int state) {
+        int mask = state / n;
+        int end = state % n;
+        int[] order = new int[Integer.bitCount(mask) + 1];
+        for (int i = order.length - 1; i > 0; i--) {
+            order[i] = end;
+            int before = previous[mask * n + end];
+            mask &= ~(1 << (end - 1));
+            end = before;
+        }
+        return order;
+    }
+}
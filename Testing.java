@@ -1,6 +1,7 @@
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 import java.util.*;
+import java.io.*;
 
 public class Testing {
 
@@ -133,4 +134,114 @@ public class Testing {
 
         assertEquals(expectedPath, Client.findPath(sites));
     }
+
+    @Test
+    @DisplayName("STUDENT TEST - Region with no connections")
+    public void regionToStringTest() {
+        Region regionOne = new Region("Region #1", 500);
+        Region regionTwo = new Region("Region #2", 100);
+        assertEquals("Region #2: pop. 100 - []", regionTwo.toString());
+
+        regionOne.addConnection(regionTwo, 300);
+        assertEquals("Region #1: pop. 500 - [Region #2 (300.0)]", regionOne.toString());
+    }
+
+    @Test
+    @DisplayName("STUDENT TEST - CSV report")
+    public void csvReportTest() throws IOException {
+        Region regionOne = new Region("Region #1", 500);
+        Region regionTwo = new Region("Region; \\ \"Two\"", 100);
+        Region regionThree = new Region("Region, #3", 300);
+        regionOne.addConnection(regionTwo, 300);
+        regionTwo.addConnection(regionThree, 600);
+
+        List<Region> sites = new ArrayList<>();
+        sites.add(regionOne);
+        sites.add(regionTwo);
+        sites.add(regionThree);
+
+        StringWriter out = new StringWriter();
+        try (ReportWriter report = new ReportWriter(out, ReportFormat.CSV)) {
+            report.writeScenario(sites);
+            report.writePath(Client.findPath(sites));
+        }
+        assertEquals("region,population,connection,cost\n"
+                + "Region #1,500,\"Region; \\ \"\"Two\"\"\",300.0\n"
+                + "\"Region; \\ \"\"Two\"\"\",100,\"Region, #3\",600.0\n"
+                + "\"Region, #3\",300,,\n"
+                + "people,cost,regions\n"
+                + "900,900.0,\"Region #1;Region\\; \\\\ \"\"Two\"\";Region, #3\"\n",
+                out.toString());
+    }
+
+    @Test
+    @DisplayName("STUDENT TEST - JSON report")
+    public void jsonReportTest() throws IOException {
+        Region regionOne = new Region("Region #1", 500);
+        Region regionTwo = new Region("Region \"Two\"", 100);
+        regionOne.addConnection(regionTwo, 300);
+
+        List<Region> sites = new ArrayList<>();
+        sites.add(regionOne);
+        sites.add(regionTwo);
+
+        StringWriter out = new StringWriter();
+        try (ReportWriter report = new ReportWriter(out, ReportFormat.JSON_LINES)) {
+            report.writeScenario(sites);
+            report.writePath(Client.findPath(sites));
+        }
+        assertEquals("{\"region\":\"Region #1\",\"population\":500,"
+                + "\"connections\":[{\"to\":\"Region \\\"Two\\\"\",\"cost\":300.0}]}\n"
+                + "{\"region\":\"Region \\\"Two\\\"\",\"population\":100,\"connections\":[]}\n"
+                + "{\"people\":600,\"cost\":300.0,\"regions\":[\"Region #1\",\"Region \\\"Two\\\"\"]}\n",
+                out.toString());
+    }
+
+    @Test
+    @DisplayName("STUDENT TEST - A path that cannot be reported leaves no trace")
+    public void brokenPathReportTest() throws IOException {
+        Region regionOne = new Region("Region #1", 500);
+        Region regionTwo = new Region("Region #2", 100);
+        regionOne.addConnection(regionTwo, 300);
+        Path broken = new Path().extend(regionTwo).extend(regionOne);
+        Path fine = new Path().extend(regionOne).extend(regionTwo);
+
+        StringWriter csv = new StringWriter();
+        try (ReportWriter report = new ReportWriter(csv, ReportFormat.CSV)) {
+            assertThrows(IllegalArgumentException.class, () -> report.writePath(broken));
+            report.writePath(fine);
+        }
+        assertEquals("people,cost,regions\n600,300.0,Region #1;Region #2\n", csv.toString());
+
+        StringWriter json = new StringWriter();
+        try (ReportWriter report = new ReportWriter(json, ReportFormat.JSON_LINES)) {
+            assertThrows(IllegalArgumentException.class, () -> report.writePath(broken));
+            report.writePath(fine);
+        }
+        assertEquals("{\"people\":600,\"cost\":300.0,\"regions\":[\"Region #1\",\"Region #2\"]}\n",
+                json.toString());
+    }
+
+    @Test
+    @DisplayName("STUDENT TEST - Long paths reject repeated regions")
+    public void longPathMembershipTest() {
+        Path path = new Path();
+        for (int i = 0; i < 2000; i++) {
+            path = path.extend(new Region("Region #" + i, i));
+        }
+        Path base = path;
+        for (int i = 0; i < 2000; i += 97) {
+            Region again = new Region("Region #" + i, i);
+            assertThrows(IllegalArgumentException.class, () -> base.extend(again));
+        }
+        assertEquals(2001, path.extend(new Region("Region #0", 1)).size());
+
+        // "Aa" and "BB" have the same hash, so these regions only differ by their names.
+        Path clash = path.extend(new Region("Aa", 7)).extend(new Region("BB", 7));
+        assertEquals(2002, clash.size());
+        assertThrows(IllegalArgumentException.class, () -> clash.extend(new Region("BB", 7)));
+        Path shorter = clash.removeEnd();
+        assertEquals(2002, shorter.extend(new Region("BB", 7)).size());
+        assertThrows(IllegalArgumentException.class, () -> shorter.extend(new Region("Aa", 7)));
+    }
 }
@@ -0,0 +1,156 @@
+import java.util.*;
+
+/*
+ * This class finds the k best relief paths in one branch-and-bound search. It keeps a heap of
+ *      at most k paths with the worst of them on top, and uses that k-th best path as the
+ *      pruning bound, so asking for a handful of routes costs little more than asking for
+ *      one. Paths are ranked like Client.bestPath: most people first, then lowest cost, then
+ *      the order the exhaustive search lists them in. The start region alone is only one of
+ *      the paths when it cannot reach any other site, since Client.findPath never considers
+ *      it otherwise.
+ */
+final class TopKSolver {
+    private static final Comparator<Entry> WORST_FIRST = (a, b) -> {
+        int order = PathRanking.compare(a.people, a.cost, b.people, b.cost);
+        if (order == 0) {
+            order = Long.compare(a.listed, b.listed);
+        }
+        return -order;
+    };
+
+    private final RegionGraph graph;
+    private final int k;
+    private final boolean prunesOnCost;
+    private final boolean[] visited;
+    private final int[] stack;
+    private final ReachableBound reachable;
+    private final PriorityQueue<Entry> heap;
+    private long listed;
+
+    private TopKSolver(RegionGraph graph, int k) {
+        this.graph = graph;
+        this.k = k;
+        boolean nonNegative = true;
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            nonNegative &= graph.cost(edge) >= 0;
+        }
+        prunesOnCost = nonNegative;
+        visited = new boolean[graph.size()];
+        stack = new int[graph.size()];
+        reachable = new ReachableBound(graph);
+        heap = new PriorityQueue<>(k + 1, WORST_FIRST);
+    }
+
+    /*
+     * Finds the k best paths through the given sites starting from the first site.
+     * Parameters:
+     *      - sites: the list of all the regions that need help, with the start first
+     *      - k: how many paths to return
+     * Return:
+     *      - List<Path>: up to k paths, best first. The first one is the path Client.findPath
+     *          picks.
+     */
+    static List<Path> solve(List<Region> sites, int k) {
+        return solve(RegionGraph.compile(sites), k);
+    }
+
+    /*
+     * Finds the k best paths through a compiled graph starting from the region with id 0.
+     * Parameters:
+     *      - graph: the compiled regions that need help
+     *      - k: how many paths to return
+     * Return:
+     *      - List<Path>: up to k paths, best first
+     */
+    static List<Path> solve(RegionGraph graph, int k) {
+        TopKSolver solver = new TopKSolver(graph, k);
+        solver.visited[0] = true;
+        solver.search(0, graph.population(0), 0, PathRanking.startAloneCounts(graph, 0));
+        LinkedList<Path> best = new LinkedList<>();
+        while (!solver.heap.isEmpty()) {
+            Entry entry = solver.heap.poll();
+            best.addFirst(graph.toPath(entry.order, entry.order.length));
+        }
+        return new ArrayList<>(best);
+    }
+
+    /*
+     * Explores every extension of the path on the stack and then offers the path itself, which
+     *      is the order the exhaustive search lists them in. Everything already in the heap was
+     *      listed earlier than anything left to explore, so a tie never displaces an entry.
+     * Parameters:
+     *      - depth: the stack index of the last site in the current path
+     *      - people: the people helped by the current path
+     *      - cost: the total cost of the current path
+     *      - counts: whether the current path is a candidate itself
+     */
+    private void search(int depth, int people, double cost, boolean counts) {
+        int end = stack[depth];
+        for (int edge = graph.firstEdge(end); edge < graph.firstEdge(end + 1); edge++) {
+            int next = graph.target(edge);
+            if (visited[next]) {
+                continue;
+            }
+            int nextPeople = people + graph.population(next);
+            double nextCost = cost + graph.cost(edge);
+            if (cannotPlace(nextPeople + reachable.people(visited, next), nextCost)) {
+                continue;
+            }
+            visited[next] = true;
+            stack[depth + 1] = next;
+            search(depth + 1, nextPeople, nextCost, true);
+            visited[next] = false;
+        }
+        if (counts) {
+            offer(depth, people, cost);
+        }
+    }
+
+    /*
+     * Checks whether a branch can be skipped because none of its paths could make the top k.
+     * Parameters:
+     *      - bound: the most people any path in the branch could help
+     *      - cost: the cost already spent to reach the branch
+     * Return:
+     *      - boolean: true if the heap is full and its worst entry beats the whole branch
+     */
+    private boolean cannotPlace(int bound, double cost) {
+        if (heap.size() < k) {
+            return false;
+        }
+        Entry worst = heap.peek();
+        return bound < worst.people || (bound == worst.people && prunesOnCost && cost >= worst.cost);
+    }
+
+    /*
+     * Adds the path on the stack to the heap if it is one of the k best so far.
+     */
+    private void offer(int depth, int people, double cost) {
+        long position = listed++;
+        if (heap.size() == k) {
+            Entry worst = heap.peek();
+            if (PathRanking.compare(people, cost, worst.people, worst.cost) >= 0) {
+                return;
+            }
+            heap.poll();
+        }
+        heap.add(new Entry(people, cost, position, Arrays.copyOf(stack, depth + 1)));
+    }
+
+    /*
+     * A path in the heap, along with the position the exhaustive search would list it at.
+     */
+    private static final class Entry {
+        final int people;
+        final double cost;
+        final long listed;
+        final int[] order;
+
+        Entry(int people, double cost, long listed, int[] order) {
+            this.people = people;
+            this.cost = cost;
+            this.listed = listed;
+            this.order = order;
+        }
+    }
+}
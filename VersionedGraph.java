@@ -0,0 +1,209 @@
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/*
+ * This class lets field updates and planning run at the same time. The regions are kept as a
+ *      chain of immutable snapshots: a change never edits the current snapshot but publishes
+ *      an edited copy of it under the next version number. Readers only ever read the latest
+ *      published snapshot, so they never wait for a writer or for each other, and a plan is
+ *      always made against one consistent version of the regions.
+ *      Writers do not lock either. Each one edits the snapshot it read and publishes the
+ *      result with a single compare-and-set only if no other writer got there first, and
+ *      tries again otherwise.
+ *      Every snapshot links to the one it was published over, and the last few are kept
+ *      that way so a plan can be repeated against the exact version it was first made for.
+ *      Regions are found by their name and by the population the snapshot being edited gives
+ *      them, so a region can be referred to by its new population as soon as the version that
+ *      changed it is published. If two regions have the same name and population, the one
+ *      that comes first in the list is the one that gets found. Like PlanningSession, the
+ *      regions it was created from are never modified.
+ */
+public final class VersionedGraph {
+    private static final int DEFAULT_HISTORY = 16;
+
+    private final Map<String, int[]> named;
+    private final AtomicReference<GraphSnapshot> latest;
+    private final int keep;
+
+    /*
+     * Creates a versioned graph over the given sites, keeping the last 16 snapshots.
+     * Parameters:
+     *      - sites: the list of all the regions that need help, with the start first
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null or empty
+     */
+    public VersionedGraph(List<Region> sites) {
+        this(sites, DEFAULT_HISTORY);
+    }
+
+    /*
+     * Creates a versioned graph over the given sites.
+     * Parameters:
+     *      - sites: the list of all the regions that need help, with the start first
+     *      - keep: how many of the latest snapshots can still be looked up by version
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the list of regions is null or empty,
+     *          or if keep is less than 1
+     */
+    public VersionedGraph(List<Region> sites, int keep) {
+        if (sites == null || sites.isEmpty()) {
+            throw new IllegalArgumentException("The sites list cannot be empty!");
+        }
+        if (keep < 1) {
+            throw new IllegalArgumentException("The graph has to keep at least one snapshot!");
+        }
+        this.keep = keep;
+        Map<String, int[]> byName = new HashMap<>();
+        for (int i = 0; i < sites.size(); i++) {
+            String name = sites.get(i).getName();
+            int[] ids = byName.get(name);
+            ids = ids == null ? new int[1] : Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = i;
+            byName.put(name, ids);
+        }
+        named = byName;
+        latest = new AtomicReference<>(new GraphSnapshot(0, RegionGraph.compile(sites), null));
+    }
+
+    /*
+     * Returns the latest published snapshot.
+     */
+    public GraphSnapshot snapshot() {
+        return latest.get();
+    }
+
+    /*
+     * Returns the snapshot published under the given version.
+     * Parameters:
+     *      - version: the version to look up
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the version was never published or is
+     *          no longer kept
+     * Return:
+     *      - GraphSnapshot: the snapshot with that version
+     */
+    public GraphSnapshot snapshot(long version) {
+        GraphSnapshot found = latest.get();
+        if (version > found.getVersion()) {
+            throw new IllegalArgumentException("The snapshot was never published: " + version);
+        }
+        if (found.getVersion() - version >= keep) {
+            throw new IllegalArgumentException("The snapshot is no longer kept: " + version);
+        }
+        while (found != null && found.getVersion() > version) {
+            found = found.previous();
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("The snapshot is no longer kept: " + version);
+        }
+        return found;
+    }
+
+    /*
+     * Finds the best path through the snapshot with the given version.
+     * Parameters:
+     *      - version: the version to plan against
+     *      - mode: the search engine to use
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the version is not kept or the mode is
+     *          null
+     * Return:
+     *      - Path: The best possible helping path between regions
+     */
+    public Path findPath(long version, SolverMode mode) {
+        return snapshot(version).findPath(mode);
+    }
+
+    /*
+     * Opens a connection between two regions, or changes its cost if it is already open.
+     * Parameters:
+     *      - from: the region the connection leaves
+     *      - to: the region the connection leads to
+     *      - cost: the cost to travel from from to to
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if either region is not part of the graph
+     * Return:
+     *      - long: the version that holds the change
+     */
+    public long addConnection(Region from, Region to, double cost) {
+        return publish(graph -> graph.withConnection(idOf(graph, from), idOf(graph, to), cost));
+    }
+
+    /*
+     * Closes the connection between two regions. Nothing is published if there was none.
+     * Parameters:
+     *      - from: the region the connection leaves
+     *      - to: the region the connection leads to
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if either region is not part of the graph
+     * Return:
+     *      - long: the version that holds the change
+     */
+    public long removeConnection(Region from, Region to) {
+        return publish(graph -> graph.withoutConnection(idOf(graph, from), idOf(graph, to)));
+    }
+
+    /*
+     * Updates how many people live in a region. Afterwards the region is referred to by its
+     *      new population, since a region with the old population is no longer part of it. If
+     *      another writer changes the same region first, the region passed in no longer
+     *      matches and nothing is published.
+     * Parameters:
+     *      - site: the region to update
+     *      - population: the new estimate of the people in the region
+     * Exceptions:
+     *      - IllegalArgumentException(): gets thrown if the region is not part of the graph
+     * Return:
+     *      - long: the version that holds the change
+     */
+    public long setPopulation(Region site, int population) {
+        return publish(graph -> graph.withPopulation(idOf(graph, site), population));
+    }
+
+    /*
+     * Applies an edit to the latest snapshot and publishes the result as the next version. If
+     *      another writer published first, the edit is applied again to that writer's
+     *      snapshot, so no change is ever lost.
+     *      Once a snapshot is published, the one keep versions before it lets go of everything
+     *      older. A writer that is slow to do so only ever cuts the chain further back than a
+     *      later writer already has.
+     */
+    private long publish(UnaryOperator<RegionGraph> edit) {
+        while (true) {
+            GraphSnapshot current = latest.get();
+            RegionGraph updated = edit.apply(current.getGraph());
+            if (updated == current.getGraph()) {
+                return current.getVersion();
+            }
+            GraphSnapshot next = new GraphSnapshot(current.getVersion() + 1, updated, current);
+            if (latest.compareAndSet(current, next)) {
+                GraphSnapshot oldest = next;
+                for (int i = 1; i < keep && oldest != null; i++) {
+                    oldest = oldest.previous();
+                }
+                if (oldest != null) {
+                    oldest.forgetPrevious();
+                }
+                return next.getVersion();
+            }
+        }
+    }
+
+    /*
+     * Looks up the id of a region in the given snapshot: the first region with the same name
+     *      that the snapshot gives the same population.
+     */
+    private int idOf(RegionGraph graph, Region site) {
+        int[] ids = site == null ? null : named.get(site.getName());
+        if (ids != null) {
+            for (int id : ids) {
+                if (graph.population(id) == site.getPopulation()) {
+                    return id;
+                }
+            }
+        }
+        throw new IllegalArgumentException("The region is not part of this graph: "
+                + (site == null ? null : site.getName()));
+    }
+}
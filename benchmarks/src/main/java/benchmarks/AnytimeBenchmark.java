@@ -0,0 +1,38 @@
+package benchmarks;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Times the time-budgeted findPath on region counts past where the exact modes finish
+ *      quickly, which shows how much of the budget is actually needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnytimeBenchmark {
+    private static final Duration BUDGET = Duration.ofMillis(200);
+
+    @Param({"20", "25"})
+    int regions;
+
+    @Param({"0.25", "0.5"})
+    double density;
+
+    List<Object> sites;
+
+    @Setup
+    public void setUp() {
+        sites = Relief.seededScenario(SolverBenchmark.SEED, regions, density);
+    }
+
+    @Benchmark
+    public Object findPath() {
+        return Relief.findPath(sites, BUDGET);
+    }
+}
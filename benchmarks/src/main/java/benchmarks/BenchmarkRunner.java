@@ -0,0 +1,38 @@
+package benchmarks;
+
+import org.openjdk.jmh.*;
+import org.openjdk.jmh.profile.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+/*
+ * Runs the benchmarks with the GC profiler attached, so every result also reports the
+ *      allocation rate and bytes allocated per operation. The command line takes the same
+ *      options as JMH's own launcher, such as a benchmark name filter or -rf json. Options that
+ *      only list or explain something, like -l, -lp, -lprof, -lrf and -h, run nothing and are
+ *      handed to JMH's launcher as they are.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine;
+        try {
+            commandLine = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line:");
+            System.err.println(" " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,40 @@
+package benchmarks;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Times the reference exhaustive search, which grows factorially and is kept to small
+ *      region counts so a run still finishes. It keeps every path it finds, so past 13 regions
+ *      a dense scenario takes seconds per search and soon runs out of memory; the rest of the
+ *      range is only covered by SolverBenchmark and LargeSolverBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExhaustiveBenchmark {
+
+    @Param({"5", "7", "9", "11", "13"})
+    int regions;
+
+    @Param({"0.25", "0.5"})
+    double density;
+
+    List<Object> sites;
+    Object solver;
+
+    @Setup
+    public void setUp() {
+        sites = Relief.seededScenario(SolverBenchmark.SEED, regions, density);
+        solver = Relief.solverMode("EXHAUSTIVE");
+    }
+
+    @Benchmark
+    public Object findPath() {
+        return Relief.findPath(sites, solver);
+    }
+}
@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Times Client.findPath at 25 regions, the top of the range SolverBenchmark covers up to 20.
+ *      Only the off-heap DP is timed here: the in-heap DP table would need about 4 GB at this
+ *      size and branch-and-bound takes minutes per search. A single search takes from several
+ *      seconds on the sparse scenario to over a minute on the dense one, so each search is
+ *      timed on its own instead of averaged over a time window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LargeSolverBenchmark {
+
+    @Param({"25"})
+    int regions;
+
+    @Param({"0.25", "0.5"})
+    double density;
+
+    @Param({"OFF_HEAP_DP"})
+    String mode;
+
+    List<Object> sites;
+    Object solver;
+
+    @Setup
+    public void setUp() {
+        sites = Relief.seededScenario(SolverBenchmark.SEED, regions, density);
+        solver = Relief.solverMode(mode);
+    }
+
+    @Benchmark
+    public Object findPath() {
+        return Relief.findPath(sites, solver);
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Times the Path operations that the searches call for every node they expand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBenchmark {
+
+    @Param({"8", "64"})
+    int length;
+
+    Object path;
+    Object extra;
+
+    @Setup
+    public void setUp() {
+        List<Object> sites = Relief.seededScenario(SolverBenchmark.SEED, length + 1, 1.0);
+        path = Relief.newPath();
+        for (int i = 0; i < length; i++) {
+            path = Relief.extend(path, sites.get(i));
+        }
+        extra = sites.get(length);
+    }
+
+    @Benchmark
+    public Object extend() {
+        return Relief.extend(path, extra);
+    }
+
+    @Benchmark
+    public Object removeEnd() {
+        return Relief.removeEnd(path);
+    }
+
+    @Benchmark
+    public int totalPeople() {
+        return Relief.totalPeople(path);
+    }
+
+    @Benchmark
+    public double totalCost() {
+        return Relief.totalCost(path);
+    }
+}
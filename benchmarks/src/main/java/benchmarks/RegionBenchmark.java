@@ -0,0 +1,37 @@
+package benchmarks;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Times Region.getCostTo lookups, which the exhaustive search and Path make for every hop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionBenchmark {
+
+    @Param({"8", "256"})
+    int connections;
+
+    Object from;
+    Object[] targets;
+    int next;
+
+    @Setup
+    public void setUp() {
+        List<Object> sites = Relief.seededScenario(SolverBenchmark.SEED, connections + 1, 1.0);
+        from = sites.get(0);
+        targets = sites.subList(1, sites.size()).toArray();
+    }
+
+    @Benchmark
+    public double getCostTo() {
+        next = next + 1 == targets.length ? 0 : next + 1;
+        return Relief.getCostTo(from, targets[next]);
+    }
+}
@@ -0,0 +1,195 @@
+package benchmarks;
+
+import java.lang.invoke.*;
+import java.time.*;
+import java.util.*;
+
+/*
+ * The solver classes live in the default package, which JMH benchmarks cannot import from.
+ *      This class looks their public methods up once as constant method handles, which the
+ *      JIT inlines, so calls through it cost the same as direct calls.
+ */
+final class Relief {
+    private static final MethodHandle NEW_REGION;
+    private static final MethodHandle ADD_CONNECTION;
+    private static final MethodHandle GET_COST_TO;
+    private static final MethodHandle NEW_PATH;
+    private static final MethodHandle EXTEND;
+    private static final MethodHandle REMOVE_END;
+    private static final MethodHandle TOTAL_PEOPLE;
+    private static final MethodHandle TOTAL_COST;
+    private static final MethodHandle FIND_PATH;
+    private static final MethodHandle FIND_PATH_IN_TIME;
+    private static final MethodHandle CREATE_RANDOM_SCENARIO;
+    private static final Class<?> SOLVER_MODE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> region = Class.forName("Region");
+            Class<?> path = Class.forName("Path");
+            Class<?> client = Class.forName("Client");
+            SOLVER_MODE = Class.forName("SolverMode");
+            NEW_REGION = lookup.findConstructor(region, MethodType.methodType(void.class, String.class, int.class))
+                    .asType(MethodType.methodType(Object.class, String.class, int.class));
+            ADD_CONNECTION = lookup.findVirtual(region, "addConnection", MethodType.methodType(void.class, region, double.class))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class, double.class));
+            GET_COST_TO = lookup.findVirtual(region, "getCostTo", MethodType.methodType(double.class, region))
+                    .asType(MethodType.methodType(double.class, Object.class, Object.class));
+            NEW_PATH = lookup.findConstructor(path, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            EXTEND = lookup.findVirtual(path, "extend", MethodType.methodType(path, region))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            REMOVE_END = lookup.findVirtual(path, "removeEnd", MethodType.methodType(path))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            TOTAL_PEOPLE = lookup.findVirtual(path, "totalPeople", MethodType.methodType(int.class))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            TOTAL_COST = lookup.findVirtual(path, "totalCost", MethodType.methodType(double.class))
+                    .asType(MethodType.methodType(double.class, Object.class));
+            FIND_PATH = lookup.findStatic(client, "findPath", MethodType.methodType(path, List.class, SOLVER_MODE))
+                    .asType(MethodType.methodType(Object.class, List.class, Object.class));
+            FIND_PATH_IN_TIME = lookup.findStatic(client, "findPath",
+                            MethodType.methodType(Class.forName("AnytimeResult"), List.class, Duration.class))
+                    .asType(MethodType.methodType(Object.class, List.class, Duration.class));
+            CREATE_RANDOM_SCENARIO = lookup.findStatic(client, "createRandomScenario",
+                    MethodType.methodType(List.class, int.class, int.class, int.class, double.class, double.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Relief() {
+    }
+
+    static Object newRegion(String name, int population) {
+        try {
+            return (Object) NEW_REGION.invokeExact(name, population);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void addConnection(Object from, Object to, double cost) {
+        try {
+            ADD_CONNECTION.invokeExact(from, to, cost);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static double getCostTo(Object from, Object to) {
+        try {
+            return (double) GET_COST_TO.invokeExact(from, to);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object newPath() {
+        try {
+            return (Object) NEW_PATH.invokeExact();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object extend(Object path, Object region) {
+        try {
+            return (Object) EXTEND.invokeExact(path, region);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object removeEnd(Object path) {
+        try {
+            return (Object) REMOVE_END.invokeExact(path);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static int totalPeople(Object path) {
+        try {
+            return (int) TOTAL_PEOPLE.invokeExact(path);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static double totalCost(Object path) {
+        try {
+            return (double) TOTAL_COST.invokeExact(path);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object findPath(List<Object> sites, Object mode) {
+        try {
+            return (Object) FIND_PATH.invokeExact((List) sites, mode);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object findPath(List<Object> sites, Duration budget) {
+        try {
+            return (Object) FIND_PATH_IN_TIME.invokeExact((List) sites, budget);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Object> createRandomScenario(int regions, int minPop, int maxPop, double minCost, double maxCost) {
+        try {
+            return (List<Object>) (List) CREATE_RANDOM_SCENARIO.invokeExact(regions, minPop, maxPop, minCost, maxCost);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object solverMode(String name) {
+        return Enum.valueOf((Class) SOLVER_MODE, name);
+    }
+
+    /*
+     * Builds a random scenario the same way Client.createRandomScenario does, but from a fixed
+     *      seed so that runs can be compared across commits.
+     * Parameters:
+     *      - seed: the seed for the random numbers
+     *      - regions: how many regions to create
+     *      - density: the chance that any two regions are connected
+     * Return:
+     *      - List<Object>: the regions, with the start region first
+     */
+    static List<Object> seededScenario(long seed, int regions, double density) {
+        Random rand = new Random(seed);
+        List<Object> result = new ArrayList<>();
+        for (int i = 0; i < regions; i++) {
+            result.add(newRegion("Region #" + i, rand.nextInt(901) + 100));
+        }
+        for (int i = 0; i < regions; i++) {
+            for (int j = i + 1; j < regions; j++) {
+                if (rand.nextDouble() < density) {
+                    double cost = Math.round((rand.nextDouble() * 900 + 100) * 100) / 100.0;
+                    addConnection(result.get(i), result.get(j), cost);
+                    addConnection(result.get(j), result.get(i), cost);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+}
@@ -0,0 +1,26 @@
+package benchmarks;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Times Client.createRandomScenario. It draws from an unseeded generator, but its cost only
+ *      depends on the number of regions, so the timings are still comparable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScenarioBenchmark {
+
+    @Param({"10", "100", "500"})
+    int regions;
+
+    @Benchmark
+    public List<Object> createRandomScenario() {
+        return Relief.createRandomScenario(regions, 100, 1000, 100, 1000);
+    }
+}
@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Times Client.findPath in each of the fast solver modes across region counts and edge
+ *      densities. Scenarios come from a fixed seed so results line up across commits.
+ *      The sizes stop at 20, where the in-heap DP table still fits in the fork's heap; 25
+ *      regions is timed in LargeSolverBenchmark with the one mode that copes with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SolverBenchmark {
+    static final long SEED = 20250225L;
+
+    @Param({"5", "10", "15", "20"})
+    int regions;
+
+    @Param({"0.25", "0.5"})
+    double density;
+
+    @Param({"SUBSET_DP", "BRANCH_AND_BOUND", "PARALLEL", "OFF_HEAP_DP"})
+    String mode;
+
+    List<Object> sites;
+    Object solver;
+
+    @Setup
+    public void setUp() {
+        sites = Relief.seededScenario(SEED, regions, density);
+        solver = Relief.solverMode(mode);
+    }
+
+    @Benchmark
+    public Object findPath() {
+        return Relief.findPath(sites, solver);
+    }
+}